@@ -2,6 +2,7 @@ package Controller.Request;
 
 import Model.Book.BookDB;
 import Model.Book.BookInfo;
+import Model.Book.SearchResult;
 import Model.Client.AccountDB;
 
 import java.util.*;
@@ -40,7 +41,7 @@ public class BookPurchase extends AccessibleRequest {
     /**
      * Store search used for this book purchase in order to redo this request
      */
-    private Map<String,BookInfo> bookSearch;
+    private SearchResult bookSearch;
 
     /**
      * Create a new book purchase request given the book database
@@ -96,12 +97,17 @@ public class BookPurchase extends AccessibleRequest {
         booksCopy = new HashMap<>(bookDB.getBooksCopy());
 
         AccountDB accountDB = AccountDB.getInstance();
-        Map<String, BookInfo> search = accountDB.getStoreSearch(clientID);
+        SearchResult search = accountDB.getStoreSearch(clientID);
         //Store search that was used for the BookPurchase
         bookSearch = search;
         if (search == null) {
             return clientID + DELIMITER + NOT_AUTHORIZED;
         }
+        // IDs must be shown by the last search, which may be a single page
+        if (!bookDB.checkIDsMatch(search, bookIDs)) {
+            return clientID + DELIMITER + BUY_REQUEST + DELIMITER + INVALID_BOOK_ID
+                    + DELIMITER + String.join(DELIMITER, bookIDs) + TERMINATOR;
+        }
         addToCommandHistory(this,clientID);
         return clientID + DELIMITER + bookDB.purchase(search, quantity, bookIDs);
     }
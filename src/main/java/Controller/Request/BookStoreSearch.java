@@ -2,13 +2,14 @@ package Controller.Request;
 
 import Model.Book.BookDB;
 import Model.Book.BookInfo;
+import Model.Book.SearchResult;
+import Model.Book.SearchHits;
 import Model.Client.AccountDB;
 import Model.Client.Service;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Book store search request to query for specific books.
@@ -21,7 +22,8 @@ public class BookStoreSearch extends AccessibleRequest {
      */
     private static final String PARAM_MESSAGE = String.format(MISSING_PARAM,
             SEARCH_REQUEST) + DELIMITER + "title,[{authors},isbn" +
-            "[,publisher[,sort order]]]";
+            "[,publisher[,sort order[,offset=n][,limit=n][,match=fuzzy|folded]" +
+            "[,published=from-to][,pages=min-max]]]]";
     /**
      * Book database used to buy and store new library books
      */
@@ -50,6 +52,14 @@ public class BookStoreSearch extends AccessibleRequest {
      * Sort ordering
      */
     private String sort;
+    /**
+     * Paging of the results
+     */
+    private SearchOptions options;
+    /**
+     * The search without its options
+     */
+    private String query;
 
     /**
      * Create a new book store search request given the book database
@@ -80,12 +90,20 @@ public class BookStoreSearch extends AccessibleRequest {
         String[] titleArr = firstSplit[0].split(",(?!\\s)");
         title = titleArr[0];
         String[] isbnPublisherSort = firstSplit[2].split(",(?!\\s)");
-        if (isbnPublisherSort.length != 4) {
+        if (isbnPublisherSort.length < 4) {
             return false;
         }
         isbn = isbnPublisherSort[1];
         publisher = isbnPublisherSort[2];
         sort = isbnPublisherSort[3];
+        options = SearchOptions.parse(isbnPublisherSort, 4);
+        if (options == null) {
+            return false;
+        }
+        query = String.join(DELIMITER, title, authors.toString(), isbn,
+                publisher, sort, options.getMatch().getMatch(),
+                options.getPublished().toString(),
+                options.getPages().toString());
         return true;
     }
 
@@ -112,25 +130,51 @@ public class BookStoreSearch extends AccessibleRequest {
         if (service == null) {
             return clientID + DELIMITER + NOT_AUTHORIZED;
         }
-        Map<String, BookInfo> search = bookDB.searchStore(service, title, authors,
-                isbn, publisher, sort);
+        if (!bookDB.supportsMatch(service, options.getMatch())) {
+            return clientID + DELIMITER + SEARCH_REQUEST + DELIMITER
+                    + UNSUPPORTED_MATCH + TERMINATOR;
+        }
+        // Later pages of the same search are taken from its hits
+        String serviceQuery = service.getService() + DELIMITER + query;
+        SearchHits hits = null;
+        if (options.isPaged()) {
+            hits = accountDB.getStoreHits(serviceQuery, clientID);
+        }
+        if (hits == null) {
+            hits = bookDB.searchStore(service, title, authors, isbn, publisher,
+                    sort, options.getMatch(), options.getPublished(),
+                    options.getPages());
+            accountDB.setStoreHits(serviceQuery, hits, clientID);
+        }
+        SearchResult search = null;
+        if (hits != null) {
+            search = new SearchResult(hits.page(options.getOffset(),
+                    options.getLimit()), options.getOffset());
+        }
         accountDB.setStoreSearch(search, clientID);
-        return clientID + DELIMITER + buildString(search);
+        return clientID + DELIMITER + buildString(search, hits);
     }
 
     /**
      * Build the formatted string to return as a response.
-     * @param search Mapping of ID to book info
+     * @param search The books of the requested page
+     * @param hits All hits of the search
      * @return Readable string representation of the map
      */
-    private String buildString(Map<String, BookInfo> search) {
+    private String buildString(SearchResult search, SearchHits hits) {
         if (search == null) {
             return INFO_REQUEST + DELIMITER + "invalid-sort-order" + TERMINATOR;
         }
+        // The size is the number of books listed and the total of a page
+        // is reported after it
         int size = search.size();
         String result = "" + SEARCH_REQUEST + DELIMITER
                 + size + DELIMITER;
-        for (String id : search.keySet()) {
+        if (options.isPage()) {
+            result += TOTAL + hits.size() + DELIMITER;
+        }
+        for (int i = 0; i < search.size(); i++) {
+            int id = search.getOffset() + i;
             BookInfo book = search.get(id);
             result += NEW_LINE;
             result += id + DELIMITER;
@@ -1,7 +1,7 @@
 package Controller.Request;
 
 import Model.Book.BookDB;
-import Model.Book.BookInfo;
+import Model.Book.SearchResult;
 import Model.Checkout.CheckoutDB;
 import Model.Client.AccountDB;
 import Model.Library.LibrarySystem;
@@ -10,7 +10,6 @@ import Model.Library.TimeKeeper;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Borrow book request to allow visitors to checkout books.
@@ -30,7 +29,7 @@ public class BorrowBook extends AccessibleRequest {
 
     private CheckoutDB checkoutDB;
 
-    private Map<String, BookInfo> search;
+    private SearchResult search;
     /**
      * Params in the command
      */
@@ -116,7 +115,7 @@ public class BorrowBook extends AccessibleRequest {
         }
         //library.checkoutBooks()->currLibraryState.checkoutBooks()->checkoutDB.checkout()
         AccountDB accountDB = AccountDB.getInstance();
-        Map<String, BookInfo> search = accountDB.getLibrarySearch(clientID);
+        SearchResult search = accountDB.getLibrarySearch(clientID);
         if (search == null) {
             return clientID + DELIMITER + NOT_AUTHORIZED;
         }
@@ -2,12 +2,13 @@ package Controller.Request;
 
 import Model.Book.BookDB;
 import Model.Book.BookInfo;
+import Model.Book.SearchResult;
+import Model.Book.SearchHits;
 import Model.Client.AccountDB;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Library book search request to query for specific books.
@@ -20,7 +21,8 @@ public class LibraryBookSearch extends AccessibleRequest {
      */
     private static final String PARAM_MESSAGE = String.format(MISSING_PARAM,
             ARRIVE_REQUEST) + DELIMITER + "title,[{authors},isbn" +
-            "[,publisher[,sort order]]]";
+            "[,publisher[,sort order[,offset=n][,limit=n][,match=fuzzy|folded]" +
+            "[,published=from-to][,pages=min-max]]]]";
     /**
      * Used to search collection of books contained in book database
      */
@@ -49,6 +51,14 @@ public class LibraryBookSearch extends AccessibleRequest {
      * Sort ordering
      */
     private String sort;
+    /**
+     * Paging of the results
+     */
+    private SearchOptions options;
+    /**
+     * The search without its options
+     */
+    private String query;
 
     /**
      * Create a new library book search request given the book database
@@ -79,12 +89,20 @@ public class LibraryBookSearch extends AccessibleRequest {
         String[] titleArr = firstSplit[0].split(",(?!\\s)");
         title = titleArr[0];
         String[] isbnPublisherSort = firstSplit[2].split(",(?!\\s)");
-        if (isbnPublisherSort.length != 4) {
+        if (isbnPublisherSort.length < 4) {
             return false;
         }
         isbn = isbnPublisherSort[1];
         publisher = isbnPublisherSort[2];
         sort = isbnPublisherSort[3];
+        options = SearchOptions.parse(isbnPublisherSort, 4);
+        if (options == null) {
+            return false;
+        }
+        query = String.join(DELIMITER, title, authors.toString(), isbn,
+                publisher, sort, options.getMatch().getMatch(),
+                options.getPublished().toString(),
+                options.getPages().toString());
         return true;
     }
 
@@ -106,26 +124,47 @@ public class LibraryBookSearch extends AccessibleRequest {
         if (!checkParams()) {
             return clientID + DELIMITER + PARAM_MESSAGE;
         }
-        Map<String, BookInfo> books = bookDB.searchBooks(title,
-                authors,isbn,publisher,sort);
         AccountDB accountDB = AccountDB.getInstance();
+        // Later pages of the same search are taken from its hits
+        SearchHits hits = null;
+        if (options.isPaged()) {
+            hits = accountDB.getLibraryHits(query, clientID);
+        }
+        if (hits == null) {
+            hits = bookDB.findBooks(title, authors, isbn, publisher, sort,
+                    options.getMatch(), options.getPublished(),
+                    options.getPages());
+            accountDB.setLibraryHits(query, hits, clientID);
+        }
+        SearchResult books = null;
+        if (hits != null) {
+            books = new SearchResult(hits.page(options.getOffset(),
+                    options.getLimit()), options.getOffset());
+        }
         accountDB.setLibrarySearch(books, clientID);
-        return clientID + DELIMITER + buildString(books);
+        return clientID + DELIMITER + buildString(books, hits);
     }
 
     /**
      * Build the formatted string to return as a response.
-     * @param search Mapping of ID to book info
+     * @param search The books of the requested page
+     * @param hits All hits of the search
      * @return Readable string representation of the map
      */
-    private String buildString(Map<String, BookInfo> search) {
+    private String buildString(SearchResult search, SearchHits hits) {
         if (search == null) {
             return INFO_REQUEST + DELIMITER + "invalid-sort-order" + TERMINATOR;
         }
+        // The size is the number of books listed and the total of a page
+        // is reported after it
         int size = search.size();
         String result = "" + INFO_REQUEST + DELIMITER
                 + size + DELIMITER;
-        for (String id : search.keySet()) {
+        if (options.isPage()) {
+            result += TOTAL + hits.size() + DELIMITER;
+        }
+        for (int i = 0; i < search.size(); i++) {
+            int id = search.getOffset() + i;
             BookInfo book = search.get(id);
             result += NEW_LINE;
             result += book.getTotalCopiesAvailable() + DELIMITER;
@@ -21,6 +21,7 @@ public interface RequestUtil {
     String ADVANCE_REQUEST = "advance";
     String DATE_TIME_REQUEST = "datetime";
     String REPORT_REQUEST = "report";
+    String SUGGEST_REQUEST = "suggest";
 
     String CONNECT_REQUEST = "connect";
     String DISCONNECT_REQUEST = "disconnect";
@@ -50,6 +51,9 @@ public interface RequestUtil {
     String OVERDUE = "overdue";
     String SUCCESS = "success";
     String CLOSED_LIBRARY = "closed-library";
+    String UNSUPPORTED_MATCH = "unsupported-match";
+    // Prefix of the total number of hits of a paged search
+    String TOTAL = "total=";
     String NEW_LINE = System.lineSeparator();
 
 }
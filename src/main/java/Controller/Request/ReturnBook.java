@@ -1,7 +1,7 @@
 package Controller.Request;
 
 import Model.Book.BookDB;
-import Model.Book.BookInfo;
+import Model.Book.SearchResult;
 import Model.Checkout.CheckoutDB;
 import Model.Client.AccountDB;
 import Model.Library.LibrarySystem;
@@ -10,7 +10,6 @@ import Model.Library.TimeKeeper;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Return book request to return the specified books of a visitor.
@@ -45,7 +44,7 @@ public class ReturnBook extends AccessibleRequest {
      */
     private List<String> bookIDs;
 
-    private Map<String, BookInfo> books;
+    private SearchResult books;
     /**
      * Create a new return book request given the checkout database
      * and the parameters for the request.
@@ -122,7 +121,7 @@ public class ReturnBook extends AccessibleRequest {
             return clientID + DELIMITER + PARAM_MESSAGE;
         }
         AccountDB accountDB = AccountDB.getInstance();
-        Map<String, BookInfo> search = accountDB.getBorrowedSearch(clientID);
+        SearchResult search = accountDB.getBorrowedSearch(clientID);
         books = search;
         if (search == null) {
             return clientID + DELIMITER + NOT_AUTHORIZED;
@@ -0,0 +1,184 @@
+package Controller.Request;
+
+import Model.Book.Match;
+import Model.Book.Range;
+
+/**
+ * Options that may follow the sort order of a search as key=value
+ * parameters, such as "offset=20,limit=10" to get the 10 books after the
+ * first 20, "match=fuzzy" to tolerate misspelled titles and authors,
+ * "match=folded" to ignore case and accents, "published=2005-2015" for
+ * books published from 2005 to 2015 or "pages=-200" for books of at most
+ * 200 pages.
+ *
+ * @author Michael Kha
+ */
+class SearchOptions {
+
+    /**
+     * Names of the options
+     */
+    private static final String OFFSET = "offset";
+    private static final String LIMIT = "limit";
+    private static final String MATCH = "match";
+    private static final String PUBLISHED = "published";
+    private static final String PAGES = "pages";
+
+    /**
+     * Position of the first book to return
+     */
+    private int offset;
+    /**
+     * Maximum number of books to return
+     */
+    private int limit;
+    /**
+     * If an offset was given to page through earlier results
+     */
+    private boolean paged;
+    /**
+     * How the title and authors are matched
+     */
+    private Match match;
+    /**
+     * Range of years the books were published in
+     */
+    private Range published;
+    /**
+     * Range of page counts of the books
+     */
+    private Range pages;
+
+    /**
+     * Create the default options that return every book.
+     */
+    private SearchOptions() {
+        offset = 0;
+        limit = Integer.MAX_VALUE;
+        paged = false;
+        match = Match.EXACT;
+        published = Range.ALL;
+        pages = Range.ALL;
+    }
+
+    /**
+     * Parse the options of a search.
+     * @param parameters The parameters of the search
+     * @param start Index of the first option in the parameters
+     * @return The options or null if a parameter is not a valid option
+     */
+    static SearchOptions parse(String[] parameters, int start) {
+        SearchOptions options = new SearchOptions();
+        for (int i = start; i < parameters.length; i++) {
+            String[] option = parameters[i].split("=", 2);
+            if (option.length != 2) {
+                return null;
+            }
+            switch (option[0]) {
+                case OFFSET:
+                    options.offset = parseCount(option[1]);
+                    options.paged = true;
+                    break;
+                case LIMIT:
+                    options.limit = parseCount(option[1]);
+                    break;
+                case MATCH:
+                    options.match = Match.fromMatch(option[1]);
+                    if (options.match == null) {
+                        return null;
+                    }
+                    break;
+                case PUBLISHED:
+                    options.published = Range.parse(option[1]);
+                    if (options.published == null) {
+                        return null;
+                    }
+                    break;
+                case PAGES:
+                    options.pages = Range.parse(option[1]);
+                    if (options.pages == null) {
+                        return null;
+                    }
+                    break;
+                default:
+                    return null;
+            }
+            if (options.offset < 0 || options.limit < 0) {
+                return null;
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Parse a count that cannot be negative.
+     * @param value The value of the option
+     * @return The count or -1 if it is not a count
+     */
+    private static int parseCount(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Get the position of the first book to return.
+     * @return The offset
+     */
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get the maximum number of books to return.
+     * @return The limit
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Get how the title and authors are matched.
+     * @return The match
+     */
+    Match getMatch() {
+        return match;
+    }
+
+    /**
+     * Get the range of years the books were published in.
+     * @return The range of years
+     */
+    Range getPublished() {
+        return published;
+    }
+
+    /**
+     * Get the range of page counts of the books.
+     * @return The range of page counts
+     */
+    Range getPages() {
+        return pages;
+    }
+
+    /**
+     * If an offset or limit was given, in which case only a page of the
+     * hits is returned and the response also reports the total number of
+     * hits.
+     * @return If only a page of the hits is returned
+     */
+    boolean isPage() {
+        return paged || limit != Integer.MAX_VALUE;
+    }
+
+    /**
+     * If an offset was given, in which case the results of the same search
+     * done before are paged through instead of searching again.
+     * @return If the search is paged
+     */
+    boolean isPaged() {
+        return paged;
+    }
+}
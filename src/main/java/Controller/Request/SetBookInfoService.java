@@ -54,7 +54,7 @@ public class SetBookInfoService extends AccessibleRequest {
         if (!checkParams()) {
             return clientID + DELIMITER + PARAM_MESSAGE;
         }
-        Service service = params.equals(Service.LOCAL.getService()) ? Service.LOCAL : Service.GOOGLE;
+        Service service = Service.fromService(params);
         return accountDB.setBookInfoService(clientID, service);
     }
 
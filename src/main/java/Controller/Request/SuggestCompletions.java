@@ -0,0 +1,91 @@
+package Controller.Request;
+
+import Model.Book.BookDB;
+
+/**
+ * Suggest request to complete the start of a title or author of the books
+ * in the library.
+ *
+ * @author Michael Kha
+ */
+public class SuggestCompletions extends AccessibleRequest {
+    /**
+     * Message for missing parameters
+     */
+    private static final String PARAM_MESSAGE = String.format(MISSING_PARAM,
+            SUGGEST_REQUEST) + DELIMITER + "prefix[,count]";
+    /**
+     * Number of suggestions when no count is given
+     */
+    private static final int DEFAULT_COUNT = 10;
+    /**
+     * Used to find the completions of the books in the library
+     */
+    private BookDB bookDB;
+    /**
+     * Params in the command
+     */
+    private String params;
+    /**
+     * The start of a title or author
+     */
+    private String prefix;
+    /**
+     * Maximum number of suggestions
+     */
+    private int count;
+
+    /**
+     * Create a new suggest request given the parameters for the request.
+     * @param clientID The client making the request
+     * @param params The parameters that follow a request command
+     */
+    public SuggestCompletions(String clientID, String params) {
+        super(clientID, false);
+        this.bookDB = BookDB.getInstance();
+        this.params = params;
+    }
+
+    /**
+     * Check the parameters to validate that the request is
+     * @return If the parameters are correct
+     */
+    @Override
+    public boolean checkParams() {
+        // Titles contain the delimiter, so only a number after the last
+        // one is taken as the count and the rest is the prefix
+        prefix = params;
+        count = DEFAULT_COUNT;
+        int last = params.lastIndexOf(DELIMITER);
+        if (last >= 0) {
+            try {
+                count = Integer.parseInt(params.substring(last + 1));
+                prefix = params.substring(0, last);
+            } catch (NumberFormatException e) {
+                // The last part belongs to the prefix
+            }
+        }
+        return !prefix.isEmpty() && count > 0;
+    }
+
+    /**
+     * Get the name of the request
+     * @return The name
+     */
+    @Override
+    public String getName() {
+        return SUGGEST_REQUEST;
+    }
+
+    /**
+     * Execute the suggest command which returns a string.
+     * @return String containing the suggested titles and authors
+     */
+    @Override
+    public String execute() {
+        if (!checkParams()) {
+            return clientID + DELIMITER + PARAM_MESSAGE;
+        }
+        return clientID + DELIMITER + bookDB.suggest(prefix, count);
+    }
+}
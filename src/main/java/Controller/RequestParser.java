@@ -138,6 +138,9 @@ public class RequestParser implements Parser {
             case INFO_REQUEST:
                 request = new LibraryBookSearch(clientID, params);
                 break;
+            case SUGGEST_REQUEST:
+                request = new SuggestCompletions(clientID, params);
+                break;
             case BORROW_REQUEST:
                 request = new BorrowBook(librarySystem, clientID, params);
                 break;
@@ -1,19 +1,26 @@
 package Model.Book;
 
 import Controller.Request.RequestUtil;
-import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * The API bookstore that uses the Google Books API to search for books.
@@ -36,47 +43,296 @@ public class BookAPIStore extends BookStorage implements RequestUtil {
     private static final String URL = "https://www.googleapis.com/books/v1/volumes";
     // See this page for search parameters: https://developers.google.com/books/docs/v1/using
 
+    /**
+     * System properties to configure the response cache and their defaults
+     */
+    private static final String CACHE_SIZE_PROPERTY = "lbms.google.cache.size";
+    private static final String CACHE_TTL_PROPERTY = "lbms.google.cache.ttl";
+    private static final int DEFAULT_CACHE_SIZE = 256;
+    private static final long DEFAULT_CACHE_TTL = 300;
+
+    /**
+     * System property for the time in milliseconds a search may take
+     */
+    private static final String DEADLINE_PROPERTY = "lbms.google.deadline";
+    private static final long DEFAULT_DEADLINE = 8000;
+    /**
+     * System properties for the number of result pages a search fetches,
+     * the number of books per page and the maximum number of requests in
+     * progress at once
+     */
+    private static final String PAGES_PROPERTY = "lbms.google.pages";
+    private static final String PAGE_SIZE_PROPERTY = "lbms.google.page.size";
+    private static final String THREADS_PROPERTY = "lbms.google.threads";
+    private static final int DEFAULT_PAGES = 1;
+    private static final int MAX_PAGE_SIZE = 40;
+    private static final int DEFAULT_THREADS = 4;
+    /**
+     * Paging parameters of a query
+     */
+    private static final String Q_START_INDEX = "&startIndex=";
+    private static final String Q_MAX_RESULTS = "&maxResults=";
+    /**
+     * Connection settings of the HTTP client
+     */
+    private static final int CONNECT_TIMEOUT = 3000;
+    private static final int READ_TIMEOUT = 5000;
+
+    /**
+     * Base URL of the volumes service
+     */
+    private String baseUrl;
+    /**
+     * Client used to make requests to the service
+     */
+    private BooksHttpClient client;
+    /**
+     * Time in milliseconds a search may take
+     */
+    private long deadline;
+    /**
+     * Number of result pages a search fetches and books per page
+     */
+    private int pages;
+    private int pageSize;
+    /**
+     * Fetches in progress keyed by query
+     */
+    private Map<String, Flight> inFlight;
+    /**
+     * Hits of recent searches keyed by query and sort order
+     */
+    private SearchCache<String, SearchHits> cache;
+
+    /**
+     * Create the API bookstore for the Google Books API.
+     */
+    public BookAPIStore() {
+        this(URL);
+    }
+
+    /**
+     * Create the API bookstore for a volumes service at the given URL, such
+     * as a local stub server. The response cache is configured by the
+     * lbms.google.cache.size (entries) and lbms.google.cache.ttl (seconds)
+     * system properties and the search deadline by lbms.google.deadline
+     * (milliseconds). Setting lbms.google.pages above 1 fetches that many
+     * pages of lbms.google.page.size books (at most 40) at once, with at
+     * most lbms.google.threads requests in progress.
+     * @param baseUrl URL of the volumes service
+     */
+    public BookAPIStore(String baseUrl) {
+        super();
+        this.baseUrl = baseUrl;
+        client = new BooksHttpClient(
+                Math.max(1, Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS)),
+                CONNECT_TIMEOUT, READ_TIMEOUT);
+        deadline = Long.getLong(DEADLINE_PROPERTY, DEFAULT_DEADLINE);
+        pages = Math.max(1, Integer.getInteger(PAGES_PROPERTY, DEFAULT_PAGES));
+        pageSize = Math.min(MAX_PAGE_SIZE, Math.max(1,
+                Integer.getInteger(PAGE_SIZE_PROPERTY, MAX_PAGE_SIZE)));
+        inFlight = new ConcurrentHashMap<>();
+        cache = new SearchCache<>(
+                Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE),
+                Long.getLong(CACHE_TTL_PROPERTY, DEFAULT_CACHE_TTL) * 1000L);
+    }
+
     /**
      * Search the books through the Google Books API web service. The JSON
-     * response must be interpreted into book information.
+     * response must be interpreted into book information. Waits for the
+     * search to finish for at most its deadline and aborts it after that. The web service already
+     * tolerates misspellings, so every match is searched the same way. The
+     * web service cannot search by publish date or page count, so the
+     * books it finds are kept if they are in the ranges.
      * @param title Title search parameter
      * @param authors Authors search parameter
      * @param isbn ISBN search parameter
      * @param publisher Publisher search parameter
      * @param sort Sort the search by either title or publish-date
-     * @return Mapping of the books
+     * @param match How the title and authors are matched
+     * @param published Range of years the books were published in
+     * @param pages Range of page counts
+     * @return The hits which are empty if the search failed or null if the
+     *         sort is invalid
      */
     @Override
-    public Map<String, BookInfo> searchBooks(String title,
-                                             List<String> authors,
-                                             String isbn,
-                                             String publisher, String sort) {
-        Map<String, BookInfo> searchedBooks;
-        List<BookInfo> hits = null;
-        String query = createQuery(title, authors, isbn, publisher);
+    public SearchHits findBooks(String title, List<String> authors,
+                                String isbn, String publisher, String sort,
+                                Match match, Range published, Range pages) {
+        boolean ranged = !published.isAll() || !pages.isAll();
+        CompletableFuture<SearchHits> search = findBooksAsync(title, authors,
+                isbn, publisher, ranged ? "*" : sort);
         try {
-            URL BookURL = new URL(URL + query);
-            HttpURLConnection conn = (HttpURLConnection) BookURL.openConnection();
-            conn.setRequestMethod("GET");
-            BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-
-            String inputLine;
-            StringBuilder response = new StringBuilder();
-            // Build a single one line string of JSON
-            while ((inputLine = in.readLine()) != null) {
-                response.append(inputLine);
-            }
-            in.close();
-            hits = parseJSONString(response.toString());
-            hits = sortBooks(hits, sort);
-            if (hits == null) {
-                return null;
+            SearchHits found = search.get(deadline, TimeUnit.MILLISECONDS);
+            if (!ranged) {
+                return found;
             }
-        } catch (IOException e) {
+            return createHits(filterRanges(found.page(0, found.size()),
+                    published, pages), sort);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            search.cancel(true);
             e.printStackTrace();
         }
-        searchedBooks = createMap(hits);
-        return searchedBooks;
+        return new SearchHits(new ArrayList<>(), null);
+    }
+
+    /**
+     * Find the books through the Google Books API web service without
+     * blocking the caller.
+     * @param title Title search parameter
+     * @param authors Authors search parameter
+     * @param isbn ISBN search parameter
+     * @param publisher Publisher search parameter
+     * @param sort Sort the search by either title or publish-date
+     * @return The future hits or null for an invalid sort. Cancelling it
+     *         aborts the request.
+     */
+    public CompletableFuture<SearchHits> findBooksAsync(
+            String title, List<String> authors, String isbn,
+            String publisher, String sort) {
+        String query = createQuery(title, authors, isbn, publisher);
+        String key = query + DELIMITER + sort;
+        SearchHits cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<List<BookInfo>> fetch = fetchShared(query);
+        CompletableFuture<SearchHits> result = fetch.thenApply(found -> {
+            // The found books are shared with identical searches
+            SearchHits hits = createHits(found, sort);
+            if (hits != null) {
+                cache.put(key, hits);
+            }
+            return hits;
+        });
+        cancelWith(result, fetch);
+        return result;
+    }
+
+    /**
+     * Fetch the books of a query, joining the fetch already in progress for
+     * an identical query if there is one. The books found must not be
+     * modified since they are shared.
+     * @param query The search query
+     * @return The future books found. Cancelling it only aborts the fetch
+     *         once every search waiting on it is cancelled.
+     */
+    private CompletableFuture<List<BookInfo>> fetchShared(String query) {
+        while (true) {
+            boolean[] created = new boolean[1];
+            Flight flight = inFlight.computeIfAbsent(query, q -> {
+                created[0] = true;
+                return new Flight(fetchPages(q));
+            });
+            if (created[0]) {
+                flight.fetch.whenComplete((hits, error) -> inFlight.remove(query, flight));
+            }
+            CompletableFuture<List<BookInfo>> waiter = flight.join();
+            if (waiter != null) {
+                return waiter;
+            }
+            // Every search waiting on the fetch was cancelled so start over
+            inFlight.remove(query, flight);
+        }
+    }
+
+    /**
+     * Fetch the result pages of a query. With more than one page every page
+     * is requested at once and the books are merged in page order without
+     * duplicate ISBNs. The first page is required while later pages that
+     * fail only leave out their books.
+     * @param query The search query
+     * @return The future books found
+     */
+    private CompletableFuture<List<BookInfo>> fetchPages(String query) {
+        try {
+            if (pages == 1) {
+                return client.get(new URL(baseUrl + query), deadline, this::parseResponse);
+            }
+            return fetchPages(query, pages);
+        } catch (MalformedURLException e) {
+            CompletableFuture<List<BookInfo>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * Fetch several result pages of a query at once.
+     * @param query The search query
+     * @param pages The number of pages
+     * @return The future merged books
+     * @throws MalformedURLException If the query does not form a valid URL
+     */
+    private CompletableFuture<List<BookInfo>> fetchPages(String query, int pages)
+            throws MalformedURLException {
+        List<CompletableFuture<List<BookInfo>>> requests = new ArrayList<>();
+        CompletableFuture<?>[] settled = new CompletableFuture<?>[pages];
+        for (int page = 0; page < pages; page++) {
+            URL pageURL = new URL(baseUrl + query + Q_START_INDEX + page * pageSize
+                    + Q_MAX_RESULTS + pageSize);
+            CompletableFuture<List<BookInfo>> request =
+                    client.get(pageURL, deadline, this::parseResponse);
+            requests.add(request);
+            settled[page] = request.handle((hits, error) -> null);
+        }
+        CompletableFuture<List<BookInfo>> merged = CompletableFuture.allOf(settled)
+                .thenApply(done -> {
+                    Map<String, BookInfo> unique = new LinkedHashMap<>();
+                    for (int page = 0; page < requests.size(); page++) {
+                        CompletableFuture<List<BookInfo>> request = requests.get(page);
+                        if (page > 0 && request.isCompletedExceptionally()) {
+                            continue;
+                        }
+                        for (BookInfo book : request.join()) {
+                            unique.putIfAbsent(book.getIsbn(), book);
+                        }
+                    }
+                    return new ArrayList<>(unique.values());
+                });
+        for (CompletableFuture<List<BookInfo>> request : requests) {
+            cancelWith(merged, request);
+        }
+        return merged;
+    }
+
+    /**
+     * Cancel a request when a future that depends on it is cancelled.
+     * Cancelling a dependent future does not reach the request by itself.
+     * @param dependent The dependent future
+     * @param request The request
+     */
+    private static void cancelWith(CompletableFuture<?> dependent,
+                                   CompletableFuture<?> request) {
+        dependent.whenComplete((value, error) -> {
+            if (dependent.isCancelled()) {
+                request.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * Stop the threads of the HTTP client. Searches in progress are
+     * aborted.
+     */
+    public void shutdown() {
+        client.shutdown();
+    }
+
+    /**
+     * Get the time in milliseconds a search may take.
+     * @return The deadline
+     */
+    long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Get the response cache to read its statistics.
+     * @return The response cache
+     */
+    SearchCache<String, SearchHits> getCache() {
+        return cache;
     }
 
     /**
@@ -99,9 +355,7 @@ public class BookAPIStore extends BookStorage implements RequestUtil {
             if (!authors.isEmpty()) {
                 query += Q_AUTHOR;
                 for (int i = 0; i < authors.size(); i++) {
-                    String author = encode(authors.get(i));
-                    authors.set(i, author);
-                    query += author;
+                    query += encode(authors.get(i));
                     if (i == authors.size() - 1 && i != 0) {
                         query += "+";
                     }
@@ -132,107 +386,294 @@ public class BookAPIStore extends BookStorage implements RequestUtil {
     }
 
     /**
-     * Parse the JSON response book by book.
-     * @param response The JSON response produced by a web request
+     * Parse the JSON response book by book as it is read. Only the fields
+     * of a book that are needed are kept and everything else is skipped
+     * without being built.
+     * @param body The JSON response produced by a web request
+     * @return The books that are for sale in the US and have every field
+     * @throws IOException If the response could not be read or is not JSON
      */
-    private List<BookInfo> parseJSONString(String response) {
-        // Tutorial: http://tutorials.jenkov.com/java-json/gson-jsonparser.html
-        JsonParser jsonParser = new JsonParser();
-        JsonElement jsonTree = jsonParser.parse(response);
-        if (!jsonTree.isJsonObject()) {
-            return null;
-        }
+    private List<BookInfo> parseResponse(InputStream body) throws IOException {
+        // Reference: https://developers.google.com/books/docs/v1/reference/volumes
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(body, StandardCharsets.UTF_8));
         List<BookInfo> hits = new ArrayList<>();
-        JsonObject jsonObject = jsonTree.getAsJsonObject();
-        JsonArray booksArray = jsonObject.getAsJsonArray("items");
-        // Iterate over each book or item
-        for (int i = 0; i < booksArray.size(); i++) {
-            String title;
-            List<String> authors = new ArrayList<>();
-            String isbn = null;
-            String publisher;
-            String publishDate;
-            int pageCount;
-            // Retrieve book and needed info
-            JsonObject book = booksArray.get(i).getAsJsonObject();
-            JsonObject volumeInfo = book.getAsJsonObject("volumeInfo");
-            JsonObject saleInfo = book.getAsJsonObject("saleInfo");
-            // Check saleability is "FOR_SALE"
-            JsonElement saleField = saleInfo.get("saleability");
-            if (!saleField.toString().equals("\"FOR_SALE\"")) {
-                continue;
-            }
-            // Check country is "US"
-            JsonElement countryField = saleInfo.get("country");
-            if (!countryField.toString().equals("\"US\"")) {
-                continue;
-            }
-            // Check title exists
-            JsonElement titleField = volumeInfo.get("title");
-            if (titleField == null) {
-                continue;
-            }
-            title = titleField.toString();
-            title = trimQuotes(title);
-            // Check authors exist
-            JsonArray authorsArray = volumeInfo.getAsJsonArray("authors");
-            if (authorsArray == null) {
-                continue;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            // A search without hits has no items
+            if (reader.nextName().equals("items")
+                    && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    BookInfo book = parseItem(reader);
+                    if (book != null) {
+                        hits.add(book);
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
             }
-            for (int a = 0; a < authorsArray.size(); a++) {
-                JsonElement authorElement = authorsArray.get(a);
-                String authorField = authorElement.toString();
-                authorField = trimQuotes(authorField);
-                authors.add(authorField);
+        }
+        reader.endObject();
+        return hits;
+    }
+
+    /**
+     * Parse a single item of the response. Once the sale info rules the
+     * book out the rest of the item is skipped.
+     * @param reader Reader positioned at the item
+     * @return The book or null if it is not for sale in the US or lacks
+     *         a field
+     * @throws IOException If the response could not be read
+     */
+    private BookInfo parseItem(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        Item item = new Item();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (item.rejected) {
+                reader.skipValue();
+            } else if (name.equals("volumeInfo") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                parseVolumeInfo(reader, item);
+            } else if (name.equals("saleInfo") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                parseSaleInfo(reader, item);
+            } else {
+                reader.skipValue();
             }
-            // Check isbn exists
-            JsonArray identifiers = volumeInfo.getAsJsonArray("industryIdentifiers");
-            if (identifiers == null) {
-                continue;
+        }
+        reader.endObject();
+        return item.toBook();
+    }
+
+    /**
+     * Parse the volume info of an item.
+     * @param reader Reader positioned at the volume info
+     * @param item The item being parsed
+     * @throws IOException If the response could not be read
+     */
+    private void parseVolumeInfo(JsonReader reader, Item item) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "title":
+                    item.title = nextString(reader);
+                    break;
+                case "authors":
+                    item.authors = nextStrings(reader);
+                    break;
+                case "industryIdentifiers":
+                    item.isbn = nextIsbn(reader);
+                    break;
+                case "publisher":
+                    item.publisher = nextString(reader);
+                    break;
+                case "publishedDate":
+                    item.publishDate = nextString(reader);
+                    break;
+                case "pageCount":
+                    String pageCount = nextString(reader);
+                    try {
+                        item.pageCount = pageCount == null ? null : Integer.valueOf(pageCount);
+                    } catch (NumberFormatException e) {
+                        item.pageCount = null;
+                    }
+                    break;
+                default:
+                    reader.skipValue();
             }
-            for (int z = 0; z < identifiers.size(); z++) {
-                JsonElement isbnElement = identifiers.get(z).getAsJsonObject().get("identifier");
-                String isbnField = isbnElement.toString();
-                // We want ISBN_13
-                if (isbnField.length() == 13 + 2) {
-                    // Remove quotes
-                    isbn = trimQuotes(isbnField);
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Parse the sale info of an item. The item is rejected unless its
+     * saleability is "FOR_SALE" and its country is "US".
+     * @param reader Reader positioned at the sale info
+     * @param item The item being parsed
+     * @throws IOException If the response could not be read
+     */
+    private void parseSaleInfo(JsonReader reader, Item item) throws IOException {
+        String saleability = null;
+        String country = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "saleability":
+                    saleability = nextString(reader);
                     break;
-                }
+                case "country":
+                    country = nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
             }
-            // Check publisher exists
-            JsonElement publisherField = volumeInfo.get("publisher");
-            if (publisherField == null) {
+        }
+        reader.endObject();
+        item.forSale = "FOR_SALE".equals(saleability) && "US".equals(country);
+        item.rejected = !item.forSale;
+    }
+
+    /**
+     * Read the ISBN_13 out of the industry identifiers.
+     * @param reader Reader positioned at the identifiers
+     * @return The first identifier with 13 characters or null if none
+     * @throws IOException If the response could not be read
+     */
+    private String nextIsbn(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        String isbn = null;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (isbn != null || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
                 continue;
             }
-            publisher = publisherField.toString();
-            publisher = trimQuotes(publisher);
-            // Grab page count and publish date for book info object
-            JsonElement pageCountField = volumeInfo.get("pageCount");
-            if (pageCountField == null) {
-                continue;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("identifier")) {
+                    String identifier = nextString(reader);
+                    // We want ISBN_13
+                    if (identifier != null && identifier.length() == 13) {
+                        isbn = identifier;
+                    }
+                } else {
+                    reader.skipValue();
+                }
             }
-            pageCount = Integer.parseInt(pageCountField.toString());
-            JsonElement publishedDateField = volumeInfo.get("publishedDate");
-            if (publishedDateField == null) {
-                continue;
+            reader.endObject();
+        }
+        reader.endArray();
+        return isbn;
+    }
+
+    /**
+     * Read an array of strings. Elements that are not strings are skipped.
+     * @param reader Reader positioned at the array
+     * @return The strings or null if the value is not an array
+     * @throws IOException If the response could not be read
+     */
+    private List<String> nextStrings(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        List<String> strings = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String string = nextString(reader);
+            if (string != null) {
+                strings.add(string);
             }
-            publishDate = publishedDateField.toString();
-            publishDate = trimQuotes(publishDate);
-            // Add to hits by creating a BookInfo object
-            hits.add(new BookInfo(isbn, title, authors, publisher, publishDate, pageCount));
         }
-        return hits;
+        reader.endArray();
+        return strings;
     }
 
     /**
-     * Trim the quotes of the element using substring.
-     * The element should have quotes.
-     * @param element The element to remove the quotes of
-     * @return The element without quotes
+     * Read a string or number value.
+     * @param reader Reader positioned at the value
+     * @return The value or null if it is of another type
+     * @throws IOException If the response could not be read
      */
-    private String trimQuotes(String element) {
-        return element.substring(1, element.length() - 1);
+    private String nextString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
     }
 
+    /**
+     * The fields of an item that are read while parsing.
+     */
+    private static class Item {
+        private String title;
+        private List<String> authors;
+        private String isbn;
+        private String publisher;
+        private String publishDate;
+        private Integer pageCount;
+        private boolean forSale;
+        private boolean rejected;
+
+        /**
+         * Create the book of the item.
+         * @return The book or null if it is not for sale or lacks a field
+         */
+        private BookInfo toBook() {
+            if (!forSale || title == null || authors == null || isbn == null
+                    || publisher == null || publishDate == null || pageCount == null) {
+                return null;
+            }
+            return new BookInfo(isbn, title, authors, publisher, publishDate, pageCount);
+        }
+    }
+
+    /**
+     * A fetch shared by identical searches in progress at the same time.
+     */
+    private static class Flight {
+
+        /**
+         * The fetch of the books
+         */
+        private final CompletableFuture<List<BookInfo>> fetch;
+        /**
+         * Number of searches waiting on the fetch that are not cancelled
+         */
+        private int waiters;
+
+        /**
+         * Create a flight for a fetch that has started.
+         * @param fetch The fetch
+         */
+        Flight(CompletableFuture<List<BookInfo>> fetch) {
+            this.fetch = fetch;
+        }
+
+        /**
+         * Wait on the fetch as another search.
+         * @return The future books found or null if the fetch was abandoned
+         */
+        synchronized CompletableFuture<List<BookInfo>> join() {
+            if (fetch.isCancelled()) {
+                return null;
+            }
+            waiters++;
+            CompletableFuture<List<BookInfo>> waiter = new CompletableFuture<>();
+            fetch.whenComplete((hits, error) -> {
+                if (error != null) {
+                    waiter.completeExceptionally(error);
+                } else {
+                    waiter.complete(hits);
+                }
+            });
+            waiter.whenComplete((hits, error) -> {
+                if (waiter.isCancelled()) {
+                    leave();
+                }
+            });
+            return waiter;
+        }
+
+        /**
+         * Stop waiting on the fetch as a search that was cancelled. The
+         * fetch is aborted when no search is left waiting.
+         */
+        private synchronized void leave() {
+            waiters--;
+            if (waiters == 0) {
+                fetch.cancel(true);
+            }
+        }
+    }
 }
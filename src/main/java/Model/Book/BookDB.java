@@ -6,8 +6,15 @@ import Model.Client.Service;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The book database that is used by the library to manage book purchases,
@@ -20,26 +27,66 @@ public class BookDB extends BookStorage implements Serializable, RequestUtil {
     private static BookDB instance;
 
     /**
-     * Local bookstore to purchase books from
+     * System property for the number of library searches whose results are
+     * cached and its default
      */
-    private Bookstore bookstore;
+    private static final String CACHE_SIZE_PROPERTY = "lbms.library.cache.size";
+    private static final int DEFAULT_CACHE_SIZE = 256;
     /**
-     * Google bookstore to purchase books from
+     * Locks of the search cache and the prefix index. Library requests
+     * only take these, never the locks the bookstores are loaded under.
      */
-    private BookAPIStore apiStore;
+    private static final Object CACHE_LOCK = new Object();
+    private static final Object PREFIX_LOCK = new Object();
+    /**
+     * Locks the local and Google bookstores are created under, so loading
+     * the catalog does not hold up the first Google search
+     */
+    private static final Object BOOKSTORE_LOCK = new Object();
+    private static final Object API_STORE_LOCK = new Object();
+    /**
+     * System property that turns on loading the local bookstore in the
+     * background when the server starts
+     */
+    private static final String PREWARM_PROPERTY = "lbms.bookstore.prewarm";
+
+    /**
+     * Local bookstore to purchase books from. Created on first use since
+     * it loads the whole catalog.
+     */
+    private transient volatile Bookstore bookstore;
+    /**
+     * Google bookstore to purchase books from. Created on first use.
+     */
+    private transient volatile BookAPIStore apiStore;
 
     /**
      * Number of books purchased during the current simulation day (Used for ReportGenerator)
      */
     private int numBooksPurchased;
 
+    /**
+     * Results of library searches. The catalog version is part of each key
+     * so results cached before the library changed are never used again.
+     * Created on first use.
+     */
+    private transient SearchCache<String, SearchHits> searchCache;
+    /**
+     * Counts changes to the books or their available copies
+     */
+    private AtomicLong catalogVersion;
+    /**
+     * Prefixes of the titles and authors of the books. Built on first use
+     * and kept up to date as books are added and removed.
+     */
+    private transient PrefixIndex prefixIndex;
+
     /**
      * Create a new book database that is empty.
      */
     private BookDB() {
         super();
-        bookstore = new Bookstore();
-        apiStore = new BookAPIStore();
+        catalogVersion = new AtomicLong();
     }
 
     public static BookDB getInstance() {
@@ -49,6 +96,195 @@ public class BookDB extends BookStorage implements Serializable, RequestUtil {
         return instance;
     }
 
+    /**
+     * Get the local bookstore, loading it if it does not exist yet.
+     * @return The local bookstore
+     */
+    private Bookstore getBookstore() {
+        Bookstore store = bookstore;
+        if (store == null) {
+            synchronized (BOOKSTORE_LOCK) {
+                store = bookstore;
+                if (store == null) {
+                    store = new Bookstore();
+                    bookstore = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Get the Google bookstore, creating it if it does not exist yet.
+     * @return The Google bookstore
+     */
+    private BookAPIStore getApiStore() {
+        BookAPIStore store = apiStore;
+        if (store == null) {
+            synchronized (API_STORE_LOCK) {
+                store = apiStore;
+                if (store == null) {
+                    store = new BookAPIStore();
+                    apiStore = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Get the cache of library search results, creating it if it does not
+     * exist yet.
+     * @return The search cache
+     */
+    private SearchCache<String, SearchHits> getSearchCache() {
+        synchronized (CACHE_LOCK) {
+            if (searchCache == null) {
+                searchCache = new SearchCache<>(Integer.getInteger(
+                        CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE), 0);
+            }
+            return searchCache;
+        }
+    }
+
+    /**
+     * Record a change to the books or their available copies so that
+     * cached search results are no longer used.
+     */
+    private void bumpVersion() {
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * Add a book to the library and to the prefix index.
+     * @param book The book to add
+     */
+    @Override
+    void addBook(BookInfo book) {
+        BookInfo old = books.get(book.getIsbn());
+        super.addBook(book);
+        synchronized (PREFIX_LOCK) {
+            if (prefixIndex != null) {
+                if (old != null) {
+                    prefixIndex.remove(old);
+                }
+                prefixIndex.add(book);
+            }
+        }
+    }
+
+    /**
+     * Remove a book from the library and from the prefix index.
+     * @param isbn The ISBN of the book to remove
+     */
+    @Override
+    void removeBook(String isbn) {
+        BookInfo old = books.get(isbn);
+        super.removeBook(isbn);
+        synchronized (PREFIX_LOCK) {
+            if (prefixIndex != null && old != null) {
+                prefixIndex.remove(old);
+            }
+        }
+    }
+
+    /**
+     * Replace all books in the library and rebuild the prefix index along
+     * with the other indexes.
+     * @param books The books mapped to their ISBNs
+     */
+    @Override
+    void replaceBooks(Map<String, BookInfo> books) {
+        super.replaceBooks(books);
+        synchronized (PREFIX_LOCK) {
+            if (prefixIndex != null) {
+                prefixIndex = new PrefixIndex(books.values());
+            }
+        }
+    }
+
+    /**
+     * Suggest the titles and authors of the library's books that start with
+     * a prefix, ignoring case and accents.
+     * @param prefix The prefix to complete
+     * @param limit Maximum number of suggestions
+     * @return The suggestions
+     */
+    public String suggest(String prefix, int limit) {
+        List<String[]> completions;
+        synchronized (PREFIX_LOCK) {
+            if (prefixIndex == null) {
+                prefixIndex = new PrefixIndex(books.values());
+            }
+            completions = prefixIndex.complete(prefix, limit);
+        }
+        String response = "" + SUGGEST_REQUEST + DELIMITER
+                + completions.size() + DELIMITER;
+        for (String[] completion : completions) {
+            response += NEW_LINE + completion[0] + DELIMITER + completion[1];
+        }
+        return response + TERMINATOR;
+    }
+
+    /**
+     * Search the library, answering repeated searches from the cache until
+     * the library changes.
+     * @param title Title search parameter
+     * @param authors Authors search parameter
+     * @param isbn ISBN search parameter
+     * @param publisher Publisher search parameter
+     * @param sort Sort the search by either title or publish-date
+     * @param match How the title and authors are matched
+     * @param published Range of years the books were published in
+     * @param pages Range of page counts
+     * @return The hits or null if the sort is invalid
+     */
+    @Override
+    public SearchHits findBooks(String title, List<String> authors,
+                                String isbn, String publisher, String sort,
+                                Match match, Range published, Range pages) {
+        // The order of the authors does not change the search
+        String key = String.join(DELIMITER,
+                String.valueOf(catalogVersion.get()), title,
+                new TreeSet<>(authors).toString(), isbn, publisher, sort,
+                match.getMatch(), published.toString(), pages.toString());
+        SearchCache<String, SearchHits> cache = getSearchCache();
+        SearchHits hits = cache.get(key);
+        if (hits == null) {
+            hits = super.findBooks(title, authors, isbn, publisher, sort,
+                    match, published, pages);
+            if (hits != null) {
+                cache.put(key, hits);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Load the local bookstore in the background so the first store search
+     * does not have to wait for the catalog. Only done when the
+     * lbms.bookstore.prewarm system property is true, since otherwise the
+     * catalog is not loaded until a store search needs it.
+     */
+    public void prewarmStores() {
+        if (!Boolean.getBoolean(PREWARM_PROPERTY)) {
+            return;
+        }
+        Thread loader = new Thread(this::getBookstore, "bookstore-prewarm");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Stop the Google bookstore's HTTP client if the store was created.
+     */
+    public void shutdownStores() {
+        BookAPIStore store = apiStore;
+        if (store != null) {
+            store.shutdown();
+        }
+    }
+
     /**
      * Search the book store for books with the given information.
      * @param title The title
@@ -56,24 +292,93 @@ public class BookDB extends BookStorage implements Serializable, RequestUtil {
      * @param isbn The isbn
      * @param publisher The publisher
      * @param sort The sort order
-     * @return The mapping of hits to a unique ID
+     * @param match How the title and authors are matched
+     * @param published Range of years the books were published in
+     * @param pages Range of page counts
+     * @return The hits or null if the sort is invalid
      */
-    public Map<String, BookInfo> searchStore(Service service, String title,
-                                             List<String> authors,
-                                             String isbn,
-                                             String publisher, String sort) {
-        Map<String, BookInfo> search = null;
+    public SearchHits searchStore(Service service, String title,
+                                  List<String> authors,
+                                  String isbn,
+                                  String publisher, String sort,
+                                  Match match, Range published, Range pages) {
+        SearchHits search = null;
         switch (service) {
             case LOCAL:
-                search = bookstore.searchBooks(title, authors, isbn, publisher, sort);
+                search = getBookstore().findBooks(title, authors, isbn,
+                        publisher, sort, match, published, pages);
                 break;
             case GOOGLE:
-                search = apiStore.searchBooks(title, authors, isbn, publisher, sort);
+                search = getApiStore().findBooks(title, authors, isbn,
+                        publisher, sort, match, published, pages);
+                break;
+            case FEDERATED:
+                search = searchFederated(title, authors, isbn, publisher,
+                        sort, match, published, pages);
                 break;
         }
         return search;
     }
 
+    /**
+     * Check if a service can search with the given match. The Google
+     * bookstore leaves matching to Google, while the local bookstore
+     * depends on its storage mode.
+     * @param service The service to search
+     * @param match How the title and authors are matched
+     * @return If the match is supported
+     */
+    public boolean supportsMatch(Service service, Match match) {
+        if (service == Service.GOOGLE) {
+            return true;
+        }
+        return getBookstore().supports(match);
+    }
+
+    /**
+     * Search the local and Google bookstores at once. The local bookstore
+     * is searched while the Google search is in progress and the Google
+     * hits are added if they arrive before its deadline. Otherwise only
+     * the local hits are listed. Books found in both are only listed once.
+     * @param title The title
+     * @param authors The authors
+     * @param isbn The isbn
+     * @param publisher The publisher
+     * @param sort The sort order
+     * @param match How the title and authors are matched locally
+     * @param published Range of years the books were published in
+     * @param pages Range of page counts
+     * @return The hits or null if the sort is invalid
+     */
+    private SearchHits searchFederated(String title, List<String> authors,
+                                       String isbn, String publisher,
+                                       String sort, Match match,
+                                       Range published, Range pages) {
+        BookAPIStore google = getApiStore();
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(google.getDeadline());
+        CompletableFuture<SearchHits> remote = google.findBooksAsync(title,
+                authors, isbn, publisher, "*");
+        Map<String, BookInfo> merged = new LinkedHashMap<>();
+        SearchHits local = getBookstore().findBooks(title, authors, isbn,
+                publisher, "*", match, published, pages);
+        for (BookInfo book : local.page(0, local.size())) {
+            merged.put(book.getIsbn(), book);
+        }
+        try {
+            SearchHits found = remote.get(Math.max(0,
+                    deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            for (BookInfo book : filterRanges(found.page(0, found.size()),
+                    published, pages)) {
+                merged.putIfAbsent(book.getIsbn(), book);
+            }
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            remote.cancel(true);
+            e.printStackTrace();
+        }
+        return createHits(new ArrayList<>(merged.values()), sort);
+    }
+
     /**
      * Purchase new books for the library based on the last search
      * made on the bookstore. The books are mapped to the last search's IDs.
@@ -81,9 +386,9 @@ public class BookDB extends BookStorage implements Serializable, RequestUtil {
      * @param quantity Number of books to purchase for each book ID
      * @param bookIDs List of book IDs from the last search to purchase
      */
-    public String purchase(Map<String, BookInfo> search, int quantity, List<String> bookIDs) {
+    public String purchase(SearchResult search, int quantity, List<String> bookIDs) {
         String response = "" + BUY_REQUEST + DELIMITER + SUCCESS + DELIMITER;
-        List<BookInfo> booksPurchased = bookstore.purchaseBooks(search,
+        List<BookInfo> booksPurchased = getBookstore().purchaseBooks(search,
                 quantity, bookIDs);
         response += booksPurchased.size() * quantity + DELIMITER;
         String isbn;
@@ -95,15 +400,14 @@ public class BookDB extends BookStorage implements Serializable, RequestUtil {
             if (books.containsKey(isbn)) {
                 temp = books.get(isbn);
                 book.addCopy(temp.getTotalCopies());
-                books.put(isbn, book);
-            } else {
-                books.put(isbn, book);
             }
+            addBook(book);
             // Build response string
             response += book.toString();
             response += DELIMITER + book.getTotalCopies();
         }
         numBooksPurchased += booksPurchased.size();
+        bumpVersion();
         return response + TERMINATOR;
     }
 
@@ -112,17 +416,18 @@ public class BookDB extends BookStorage implements Serializable, RequestUtil {
      * @param bookIDs The books to remove (isbn).
      * @param quantity The amount of each book to remove.
      */
-    public void undoPurchase(Map<String, BookInfo> bookIDs, int quantity) {
+    public void undoPurchase(SearchResult bookIDs, int quantity) {
         String isbn;
-        for ( Map.Entry<String, BookInfo> book : bookIDs.entrySet()) {
-            isbn = book.getValue().getIsbn();
+        for (BookInfo book : bookIDs.getBooks()) {
+            isbn = book.getIsbn();
             if (books.containsKey(isbn)) {
                 books.get(isbn).removeCopies(quantity);
                 numBooksPurchased -= quantity;
                 if (books.get(isbn).getTotalCopies() <= 0)
-                    books.remove(isbn);
+                    removeBook(isbn);
             }
         }
+        bumpVersion();
     }
     /**
      * Helper method for undoing and redoing BookPurchase requests
@@ -136,7 +441,8 @@ public class BookDB extends BookStorage implements Serializable, RequestUtil {
      * Helper method for undoing and redoing BookPurchase requests
      */
     public void setBooks(Map<String,BookInfo> books){
-        super.books = books;
+        replaceBooks(books);
+        bumpVersion();
     }
 
     /**
@@ -146,9 +452,9 @@ public class BookDB extends BookStorage implements Serializable, RequestUtil {
      * @param bookIds The list of book IDs to check
      * @return If there is no mismatch
      */
-    public boolean checkIDsMatch(Map<String, BookInfo> search, List<String> bookIds){
+    public boolean checkIDsMatch(SearchResult search, List<String> bookIds){
         for (String id : bookIds) {
-            if (!search.containsKey(id)) {
+            if (!search.containsId(id)) {
                 return false;
             }
         }
@@ -162,16 +468,20 @@ public class BookDB extends BookStorage implements Serializable, RequestUtil {
      * @param bookIDs The book IDs to checkout
      * @return List of books to be borrowed or null if invalid book ID
      */
-    public List<BookInfo> borrowBooks(Map<String, BookInfo> search, List<String> bookIDs) {
+    public List<BookInfo> borrowBooks(SearchResult search, List<String> bookIDs) {
         List<BookInfo> books = new ArrayList<>();
         for (String bookID : bookIDs) {
             BookInfo book = search.get(bookID);
             books.add(book);
             // Book no longer available. Not enough copies
             if (!book.checkOutCopy()) {
+                // Copies of the earlier books were still checked out
+                bumpVersion();
                 return null;
             }
+            updateAvailability(book.getIsbn());
         }
+        bumpVersion();
         return books;
     }
 
@@ -180,8 +490,11 @@ public class BookDB extends BookStorage implements Serializable, RequestUtil {
      * @param book the ISBN of the book.
      */
     public void returnCopy(String book){
-        if (books.containsKey(book))
+        if (books.containsKey(book)) {
             books.get(book).returnCopy();
+            updateAvailability(book);
+        }
+        bumpVersion();
     }
 
     public void undoReturnCopy(String book) {
@@ -204,6 +517,69 @@ public class BookDB extends BookStorage implements Serializable, RequestUtil {
         return numBooksPurchased;
     }
 
+    /**
+     * Helper method for reportGenerator to retrieve the fraction of library
+     * searches answered from the cache
+     * @return The hit rate or 0 if there were no searches
+     */
+    public double getSearchCacheHitRate(){
+        return getSearchCache().getHitRate();
+    }
+
+    /**
+     * Get the number of library searches answered from the cache.
+     * @return The number of cache hits
+     */
+    public long getSearchCacheHits(){
+        return getSearchCache().getHits();
+    }
+
+    /**
+     * Get the number of library searches that had to search the books.
+     * @return The number of cache misses
+     */
+    public long getSearchCacheMisses(){
+        return getSearchCache().getMisses();
+    }
+
+    /**
+     * Get the number of Google searches answered from the response cache.
+     * @return The number of cache hits or 0 if Google was not searched
+     */
+    public long getApiCacheHits(){
+        BookAPIStore store = apiStore;
+        return store == null ? 0 : store.getCache().getHits();
+    }
+
+    /**
+     * Get the number of Google searches that had to fetch their books.
+     * @return The number of cache misses or 0 if Google was not searched
+     */
+    public long getApiCacheMisses(){
+        BookAPIStore store = apiStore;
+        return store == null ? 0 : store.getCache().getMisses();
+    }
+
+    /**
+     * Get the number of Google searches dropped from the response cache
+     * because they expired or the cache was full.
+     * @return The number of evictions or 0 if Google was not searched
+     */
+    public long getApiCacheEvictions(){
+        BookAPIStore store = apiStore;
+        return store == null ? 0 : store.getCache().getEvictions();
+    }
+
+    /**
+     * Helper method for reportGenerator to retrieve the rate the local
+     * bookstore read the books file at. The bookstore is not loaded for it.
+     * @return Lines per second or 0 if the books file was not read
+     */
+    public long getCatalogLoadRate(){
+        Bookstore store = bookstore;
+        return store == null ? 0 : store.getLoadRate();
+    }
+
     /**
      * Clear daily statistic "numBooksPurchased" when daily report is generated
      */
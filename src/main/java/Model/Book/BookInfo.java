@@ -1,7 +1,12 @@
 package Model.Book;
 
 import java.io.Serializable;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 /**
  * The book info to represent all information pertaining to a book.
@@ -10,6 +15,11 @@ import java.util.List;
  */
 public class BookInfo implements Serializable {
 
+    /**
+     * Accents and other marks left after decomposing a string
+     */
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
     /**
      * Book attributes
      */
@@ -18,23 +28,53 @@ public class BookInfo implements Serializable {
     private List<String> authors;
     private String publisher;
     private String publishDate;
+    private int publishDateKey;
     private int pageCount;
     private int totalCopies;
     private int totalCopiesAvailable;
+    /**
+     * Title and authors folded to lower case without accents for
+     * case and accent insensitive searches
+     */
+    private String foldedTitle;
+    private List<String> foldedAuthors;
 
     /**
      * Create book info given the necessary information.
      */
     public BookInfo(String isbn, String title, List<String> authors,
                     String publisher, String publishDate, int pageCount) {
+        // Share repeated authors and publishers with other book info
+        StringPool pool = StringPool.getInstance();
+        this.isbn = isbn;
+        this.title = title;
+        this.authors = pool.authors(authors);
+        this.publisher = pool.canonical(publisher);
+        this.publishDate = publishDate;
+        this.publishDateKey = parsePublishDate(publishDate);
+        this.pageCount = pageCount;
+        totalCopies = 1;
+        totalCopiesAvailable = 1;
+        foldKeys();
+    }
+
+    /**
+     * Create book info from values that are already parsed, such as the
+     * columns of a catalog. The strings and authors are kept as given.
+     */
+    BookInfo(String isbn, String title, List<String> authors,
+             String publisher, String publishDate, int publishDateKey,
+             int pageCount) {
         this.isbn = isbn;
         this.title = title;
         this.authors = authors;
         this.publisher = publisher;
         this.publishDate = publishDate;
+        this.publishDateKey = publishDateKey;
         this.pageCount = pageCount;
         totalCopies = 1;
         totalCopiesAvailable = 1;
+        foldKeys();
     }
 
     /**
@@ -47,11 +87,75 @@ public class BookInfo implements Serializable {
         authors = other.authors;
         publisher = other.publisher;
         publishDate = other.publishDate;
+        publishDateKey = other.publishDateKey;
         pageCount = other.pageCount;
+        foldedTitle = other.foldedTitle;
+        foldedAuthors = other.foldedAuthors;
         totalCopies = copies;
         totalCopiesAvailable = copies;
     }
 
+    /**
+     * Fold the title and authors once so searches can compare them without
+     * folding each book again. Text that folding leaves unchanged is shared
+     * with the title and authors.
+     */
+    private void foldKeys() {
+        foldedTitle = fold(title);
+        List<String> folded = new ArrayList<>(authors.size());
+        boolean unchanged = true;
+        for (String author : authors) {
+            String foldedAuthor = fold(author);
+            unchanged = unchanged && foldedAuthor.equals(author);
+            folded.add(foldedAuthor);
+        }
+        foldedAuthors = unchanged ? authors
+                : Collections.unmodifiableList(folded);
+    }
+
+    /**
+     * Fold text to lower case and strip its accents, so that an accented
+     * "Emile" and "EMILE" both become "emile".
+     * @param text The text to fold
+     * @return The folded text
+     */
+    static String fold(String text) {
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (!ascii) {
+            text = MARKS.matcher(Normalizer.normalize(text,
+                    Normalizer.Form.NFD)).replaceAll("");
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse a publish date of the form yyyy[-mm[-dd]] into a key that orders
+     * the same way as the date. The year, month and day are packed into the
+     * high bits with missing parts as zero, and the low two bits hold the
+     * number of parts after the year.
+     * @param publishDate The publish date
+     * @return The sortable publish date key
+     */
+    static int parsePublishDate(String publishDate) {
+        int[] parts = new int[3];
+        int part = 0;
+        for (int i = 0; i < publishDate.length() && part < 3; i++) {
+            char c = publishDate.charAt(i);
+            if (c == '-') {
+                part++;
+            } else if (c >= '0' && c <= '9') {
+                parts[part] = parts[part] * 10 + (c - '0');
+            } else {
+                break;
+            }
+        }
+        int precision = Math.min(part, 2);
+        return (parts[0] << 11) | (parts[1] << 7) | (parts[2] << 2) | precision;
+    }
+
     /**
      * Adds a copy of this book to the library.
      */
@@ -110,6 +214,22 @@ public class BookInfo implements Serializable {
         return authors;
     }
 
+    /**
+     * Get the title folded to lower case without accents.
+     * @return The folded title
+     */
+    public String getFoldedTitle() {
+        return foldedTitle;
+    }
+
+    /**
+     * Get the authors folded to lower case without accents.
+     * @return The folded authors
+     */
+    public List<String> getFoldedAuthors() {
+        return foldedAuthors;
+    }
+
     /**
      * Get the publisher.
      * @return The publisher of the book
@@ -126,6 +246,15 @@ public class BookInfo implements Serializable {
         return publishDate;
     }
 
+    /**
+     * Get the publish date parsed into a key that orders the same way as
+     * the date.
+     * @return The publish date key
+     */
+    public int getPublishDateKey() {
+        return publishDateKey;
+    }
+
     /**
      * Get the page count.
      * @return The page count
@@ -1,9 +1,20 @@
 package Model.Book;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -13,12 +24,52 @@ import java.util.stream.Collectors;
  */
 public abstract class BookStorage {
 
+    /**
+     * When no more than this many candidates are left, they are checked
+     * against the search parameters instead of intersecting more indexes
+     */
+    private static final int CHECK_THRESHOLD = 64;
+
     /**
      * Available books mapped to their IBSNs
      */
     Map<String, BookInfo> books;
     /**
-     * Comparators for book info
+     * Int IDs of the books mapped to their ISBNs and the books at their IDs.
+     * The IDs of removed books are reused.
+     */
+    private Map<String, Integer> ids;
+    private List<BookInfo> slots;
+    private Deque<Integer> freeIds;
+    /**
+     * IDs of the books that have copies available
+     */
+    private BitSet available;
+    /**
+     * Trigram indexes over the titles and authors of the books, both as
+     * they are and folded
+     */
+    private NGramIndex titleIndex;
+    private NGramIndex authorIndex;
+    /**
+     * Publishers mapped to the IDs of their books
+     */
+    private Map<String, Postings> publisherIndex;
+    /**
+     * IDs ordered by publish date key and by page count, built when a
+     * range is first searched and kept up to date as books are added and
+     * removed after that
+     */
+    private RangeIndex publishDateRange;
+    private RangeIndex pageCountRange;
+    /**
+     * Books kept ordered by title and by publish date
+     */
+    private NavigableSet<BookInfo> titleOrder;
+    private NavigableSet<BookInfo> publishDateOrder;
+    /**
+     * Comparators for book info. Ties are broken by ISBN so that every book
+     * has a distinct position.
      */
     private Comparator<BookInfo> byTitle;
     private Comparator<BookInfo> byPublishDate;
@@ -28,76 +79,586 @@ public abstract class BookStorage {
      */
     public BookStorage() {
         books = new HashMap<>();
-        byTitle = new TitleComparator();
-        byPublishDate = new PublishDateComparator();
+        ids = new HashMap<>();
+        slots = new ArrayList<>();
+        freeIds = new ArrayDeque<>();
+        available = new BitSet();
+        titleIndex = new NGramIndex();
+        authorIndex = new NGramIndex();
+        publisherIndex = new HashMap<>();
+        byTitle = new TitleComparator().thenComparing(BookInfo::getIsbn);
+        byPublishDate = new PublishDateComparator().thenComparing(BookInfo::getIsbn);
+        titleOrder = new TreeSet<>(byTitle);
+        publishDateOrder = new TreeSet<>(byPublishDate);
+    }
+
+    /**
+     * Add a book to the storage, replacing any book with the same ISBN, and
+     * keep the search indexes up to date.
+     * @param book The book to add
+     */
+    void addBook(BookInfo book) {
+        BookInfo old = books.put(book.getIsbn(), book);
+        if (old != null) {
+            unindex(old);
+        }
+        index(book);
+    }
+
+    /**
+     * Remove the book with the given ISBN from the storage and its indexes.
+     * @param isbn The ISBN of the book to remove
+     */
+    void removeBook(String isbn) {
+        BookInfo old = books.remove(isbn);
+        if (old != null) {
+            unindex(old);
+        }
+    }
+
+    /**
+     * Replace all books in the storage and rebuild the indexes.
+     * @param books The books mapped to their ISBNs
+     */
+    void replaceBooks(Map<String, BookInfo> books) {
+        this.books = books;
+        ids.clear();
+        slots.clear();
+        freeIds.clear();
+        available.clear();
+        titleIndex.clear();
+        authorIndex.clear();
+        publisherIndex.clear();
+        titleOrder.clear();
+        publishDateOrder.clear();
+        // Built again with the new books when a range is searched
+        publishDateRange = null;
+        pageCountRange = null;
+        for (BookInfo book : books.values()) {
+            index(book);
+        }
+    }
+
+    /**
+     * Add the book to the search indexes.
+     * @param book The book to index
+     */
+    private void index(BookInfo book) {
+        int id;
+        if (freeIds.isEmpty()) {
+            id = slots.size();
+            slots.add(book);
+        } else {
+            id = freeIds.pop();
+            slots.set(id, book);
+        }
+        ids.put(book.getIsbn(), id);
+        available.set(id, book.hasCopiesAvailable());
+        titleIndex.add(id, titleTexts(book));
+        authorIndex.add(id, authorTexts(book));
+        publisherIndex.computeIfAbsent(book.getPublisher(), p -> new Postings())
+                .add(id);
+        titleOrder.add(book);
+        publishDateOrder.add(book);
+        if (publishDateRange != null) {
+            publishDateRange.add(book.getPublishDateKey(), id);
+        }
+        if (pageCountRange != null) {
+            pageCountRange.add(book.getPageCount(), id);
+        }
+    }
+
+    /**
+     * Remove the book from the search indexes.
+     * @param book The book to remove
+     */
+    private void unindex(BookInfo book) {
+        Integer id = ids.remove(book.getIsbn());
+        if (id == null) {
+            return;
+        }
+        slots.set(id, null);
+        available.clear(id);
+        freeIds.push(id);
+        titleIndex.remove(id, titleTexts(book));
+        authorIndex.remove(id, authorTexts(book));
+        Postings published = publisherIndex.get(book.getPublisher());
+        if (published != null) {
+            published.remove(id);
+            if (published.size() == 0) {
+                publisherIndex.remove(book.getPublisher());
+            }
+        }
+        titleOrder.remove(book);
+        publishDateOrder.remove(book);
+        if (publishDateRange != null) {
+            publishDateRange.remove(book.getPublishDateKey(), id);
+        }
+        if (pageCountRange != null) {
+            pageCountRange.remove(book.getPageCount(), id);
+        }
     }
 
     /**
-     * Search the books using a filter on all the available books for purchase.
+     * Get the index of the books by publish date key.
+     * @return The range index
+     */
+    private RangeIndex publishDateRange() {
+        if (publishDateRange == null) {
+            publishDateRange = buildRange(true);
+        }
+        return publishDateRange;
+    }
+
+    /**
+     * Get the index of the books by page count.
+     * @return The range index
+     */
+    private RangeIndex pageCountRange() {
+        if (pageCountRange == null) {
+            pageCountRange = buildRange(false);
+        }
+        return pageCountRange;
+    }
+
+    /**
+     * Build a range index over the books in the storage.
+     * @param byPublishDate If the books are indexed by publish date key
+     *                      rather than by page count
+     * @return The range index
+     */
+    private RangeIndex buildRange(boolean byPublishDate) {
+        int[] values = new int[ids.size()];
+        int[] bookIds = new int[ids.size()];
+        int size = 0;
+        for (int id = 0; id < slots.size(); id++) {
+            BookInfo book = slots.get(id);
+            if (book != null) {
+                values[size] = byPublishDate ? book.getPublishDateKey()
+                        : book.getPageCount();
+                bookIds[size++] = id;
+            }
+        }
+        return new RangeIndex(values, bookIds, size);
+    }
+
+    /**
+     * Record whether the book with the given ISBN has copies available after
+     * a copy was checked out or returned.
+     * @param isbn The ISBN of the book
+     */
+    void updateAvailability(String isbn) {
+        Integer id = ids.get(isbn);
+        if (id != null) {
+            available.set(id, slots.get(id).hasCopiesAvailable());
+        }
+    }
+
+    /**
+     * Get the texts of a book's title to index.
+     * @param book The book
+     * @return The title and the folded title
+     */
+    private List<String> titleTexts(BookInfo book) {
+        return Arrays.asList(book.getTitle(), book.getFoldedTitle());
+    }
+
+    /**
+     * Get the texts of a book's authors to index.
+     * @param book The book
+     * @return The authors and the folded authors
+     */
+    private List<String> authorTexts(BookInfo book) {
+        List<String> texts = new ArrayList<>(book.getAuthors());
+        texts.addAll(book.getFoldedAuthors());
+        return texts;
+    }
+
+    /**
+     * Find the books matching the search parameters in the given way that
+     * were published in a range of years and have a number of pages in a
+     * range.
      * @param title Title search parameter
      * @param authors Authors search parameter
      * @param isbn ISBN search parameter
      * @param publisher Publisher search parameter
      * @param sort Sort the search by either title or publish-date
-     * @return The mapping of hits to a unique ID
+     * @param match How the title and authors are matched
+     * @param published Range of years the books were published in
+     * @param pages Range of page counts
+     * @return The hits or null if the sort is invalid
      */
-    public Map<String, BookInfo> searchBooks(String title,
-                                              List<String> authors,
-                                              String isbn,
-                                              String publisher, String sort) {
+    public SearchHits findBooks(String title, List<String> authors,
+                                String isbn, String publisher, String sort,
+                                Match match, Range published, Range pages) {
+        Range publishKeys = published.toPublishDateKeys();
+        if (match == Match.FUZZY) {
+            return findFuzzy(new FuzzyQuery(title, authors), isbn,
+                    publisher, sort, publishKeys, pages);
+        }
+        boolean folded = match == Match.FOLDED;
+        if (folded) {
+            // Fold the query once instead of each book
+            title = BookInfo.fold(title);
+            authors = fold(authors);
+        }
+        String titleQuery = title;
+        List<String> authorQueries = authors;
+        // Only books with copies available are shown by book-status
+        Collection<BookInfo> candidates = findCandidates(title, authors,
+                isbn, publisher, publishKeys, pages,
+                sort.equals("book-status"));
+        // Without a narrowed candidate set, walk an ordered view instead
+        // of sorting the whole catalog afterwards
+        boolean presorted = false;
+        if (candidates == null) {
+            candidates = orderedView(sort);
+            presorted = candidates != null;
+            if (!presorted) {
+                candidates = books.values();
+            }
+        }
         // Filter out results into a list of search hits
-        List<BookInfo> hits = books.values().stream()
-                .filter(b -> matchingFilter(b, title, authors,
-                        isbn, publisher))
+        List<BookInfo> hits = candidates.stream()
+                .filter(b -> matchingFilter(b, titleQuery, authorQueries,
+                        isbn, publisher, folded)
+                        && inRanges(b, publishKeys, pages))
                 .collect(Collectors.toList());
-        // Sort the books by the specified parameter
-        hits = sortBooks(hits, sort);
-        if (hits == null) {
+        if (presorted) {
+            return new SearchHits(hits, null);
+        }
+        return createHits(hits, sort);
+    }
+
+    /**
+     * Find the books within a few edits of the title and authors. The
+     * n-gram indexes give the books sharing enough n-grams with every term
+     * and these are intersected with the books the other parameters narrow
+     * down to, so only the books in both are measured. When the other
+     * parameters leave few books, those are measured without merging the
+     * n-gram postings.
+     * @param query The title and authors
+     * @param isbn ISBN search parameter
+     * @param publisher Publisher search parameter
+     * @param sort The sorting strategy
+     * @param publishKeys Range of publish date keys
+     * @param pages Range of page counts
+     * @return The hits or null if the sort is invalid
+     */
+    private SearchHits findFuzzy(FuzzyQuery query, String isbn,
+                                 String publisher, String sort,
+                                 Range publishKeys, Range pages) {
+        int[] filtered = findCandidateIds("*", Collections.emptyList(), isbn,
+                publisher, publishKeys, pages, false);
+        if (filtered == null || filtered.length > CHECK_THRESHOLD) {
+            int[] similar = findSimilar(query, titleIndex, authorIndex,
+                    ids.size());
+            if (similar != null) {
+                filtered = filtered == null ? similar
+                        : intersect(filtered, similar);
+            }
+        }
+        Collection<BookInfo> candidates = filtered == null ? books.values()
+                : lookup(filtered);
+        List<BookInfo> hits = new ArrayList<>();
+        Map<String, Integer> distances = new HashMap<>();
+        for (BookInfo book : candidates) {
+            if (!matchingFilter(book, "*", Collections.emptyList(), isbn,
+                    publisher, false) || !inRanges(book, publishKeys, pages)) {
+                continue;
+            }
+            int distance = query.distance(book.getTitle(), book.getAuthors());
+            if (distance >= 0) {
+                hits.add(book);
+                distances.put(book.getIsbn(), distance);
+            }
+        }
+        return createRankedHits(hits, distances, sort);
+    }
+
+    /**
+     * Narrow down the IDs of the books that could be within a few edits of
+     * the title and authors using n-gram indexes of them.
+     * @param query The title and authors
+     * @param titleIndex The n-gram index of the titles
+     * @param authorIndex The n-gram index of the authors
+     * @param books The number of books in the indexes
+     * @return The candidate IDs in increasing order or null if no index
+     *         applies
+     */
+    static int[] findSimilar(FuzzyQuery query, NGramIndex titleIndex,
+                             NGramIndex authorIndex, int books) {
+        int[] candidates = null;
+        if (query.getTitle() != null) {
+            candidates = titleIndex.similar(query.getTitle(),
+                    FuzzyQuery.minShared(query.getTitle()), books);
+        }
+        for (String author : query.getAuthors()) {
+            int[] authorHits = authorIndex.similar(author,
+                    FuzzyQuery.minShared(author), books);
+            if (authorHits == null) {
+                continue;
+            }
+            if (candidates == null) {
+                candidates = authorHits;
+            } else {
+                candidates = intersect(candidates, authorHits);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Check if the storage can search with the given match.
+     * @param match How the title and authors are matched
+     * @return If the match is supported
+     */
+    boolean supports(Match match) {
+        return true;
+    }
+
+    /**
+     * Narrow down the books that could match the search parameters using the
+     * indexes. Each parameter an index can answer becomes a filter whose
+     * size is estimated from the index without evaluating it. Only the most
+     * selective filter is evaluated into a list of IDs, and the other
+     * filters test those IDs one at a time instead of being evaluated, most
+     * selective first. Once few candidates are left the rest are not tested
+     * since the candidates are checked against every parameter anyway.
+     * Parameters too short to be indexed are ignored.
+     * @param title Title search parameter
+     * @param authors Authors search parameter
+     * @param isbn ISBN search parameter
+     * @param publisher Publisher search parameter
+     * @param publishKeys Range of publish date keys
+     * @param pages Range of page counts
+     * @param availableOnly If only books with copies available are wanted
+     * @return The candidate books or null if no index applies
+     */
+    private Collection<BookInfo> findCandidates(String title,
+                                                List<String> authors,
+                                                String isbn,
+                                                String publisher,
+                                                Range publishKeys,
+                                                Range pages,
+                                                boolean availableOnly) {
+        int[] candidates = findCandidateIds(title, authors, isbn, publisher,
+                publishKeys, pages, availableOnly);
+        return candidates == null ? null : lookup(candidates);
+    }
+
+    /**
+     * Narrow down the IDs of the books that could match the search
+     * parameters using the indexes, as described for findCandidates.
+     * @param title Title search parameter
+     * @param authors Authors search parameter
+     * @param isbn ISBN search parameter
+     * @param publisher Publisher search parameter
+     * @param publishKeys Range of publish date keys
+     * @param pages Range of page counts
+     * @param availableOnly If only books with copies available are wanted
+     * @return The candidate IDs in increasing order or null if no index
+     *         applies
+     */
+    private int[] findCandidateIds(String title, List<String> authors,
+                                   String isbn, String publisher,
+                                   Range publishKeys, Range pages,
+                                   boolean availableOnly) {
+        List<IndexFilter> filters = new ArrayList<>();
+        if (!isbn.equals("*")) {
+            Integer id = ids.get(isbn);
+            int[] book = id == null ? new int[0] : new int[] {id};
+            filters.add(new IndexFilter(book.length, () -> book,
+                    other -> id != null && other == id));
+        }
+        if (!publisher.equals("*")) {
+            Postings published = publisherIndex.getOrDefault(publisher,
+                    new Postings());
+            filters.add(new IndexFilter(published.size(), published::toArray,
+                    published::contains));
+        }
+        if (!title.equals("*")) {
+            addTextFilter(filters, titleIndex, title);
+        }
+        for (String author : authors) {
+            addTextFilter(filters, authorIndex, author);
+        }
+        if (!publishKeys.isAll()) {
+            addRangeFilter(filters, publishDateRange(), publishKeys,
+                    id -> publishKeys.contains(slots.get(id).getPublishDateKey()));
+        }
+        if (!pages.isAll()) {
+            addRangeFilter(filters, pageCountRange(), pages,
+                    id -> pages.contains(slots.get(id).getPageCount()));
+        }
+        if (availableOnly) {
+            filters.add(new IndexFilter(available.cardinality(),
+                    () -> available.stream().toArray(), available::get));
+        }
+        if (filters.isEmpty()) {
             return null;
         }
-        return createMap(hits);
+        filters.sort(Comparator.comparingInt(filter -> filter.estimate));
+        int[] candidates = filters.get(0).evaluate.get();
+        for (int i = 1; i < filters.size()
+                && candidates.length > CHECK_THRESHOLD; i++) {
+            candidates = retain(candidates, filters.get(i).test);
+        }
+        return candidates;
+    }
+
+    /**
+     * Keep the IDs that pass a test.
+     * @param candidates The IDs, which are reused for the result
+     * @param test The test
+     * @return The IDs that passed in the same order
+     */
+    static int[] retain(int[] candidates, IntPredicate test) {
+        int kept = 0;
+        for (int id : candidates) {
+            if (test.test(id)) {
+                candidates[kept++] = id;
+            }
+        }
+        return kept == candidates.length ? candidates
+                : Arrays.copyOf(candidates, kept);
+    }
+
+    /**
+     * Intersect two lists of IDs in increasing order.
+     * @param a The first IDs
+     * @param b The second IDs
+     * @return The IDs in both in increasing order
+     */
+    static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Add a filter for a substring of the title or an author if the n-gram
+     * index can narrow it down.
+     * @param filters The filters of the search
+     * @param index The n-gram index of the text
+     * @param query The substring to search for
+     */
+    private void addTextFilter(List<IndexFilter> filters, NGramIndex index,
+                               String query) {
+        int estimate = index.estimate(query);
+        if (estimate >= 0) {
+            filters.add(new IndexFilter(estimate,
+                    () -> index.candidates(query), index.filter(query)));
+        }
+    }
+
+    /**
+     * Add a filter for a range of values. Counting the books in the range
+     * takes two binary searches, so the estimate is exact.
+     * @param filters The filters of the search
+     * @param index The range index of the values
+     * @param range The range of values
+     * @param test Test of whether a book's value is in the range
+     */
+    private void addRangeFilter(List<IndexFilter> filters, RangeIndex index,
+                                Range range, IntPredicate test) {
+        filters.add(new IndexFilter(index.count(range),
+                () -> index.find(range), test));
+    }
+
+    /**
+     * Get the books already ordered by the given sorting strategy.
+     * @param sort The sorting strategy
+     * @return The ordered books or null if the strategy has no ordered view
+     */
+    private Collection<BookInfo> orderedView(String sort) {
+        switch (sort) {
+            case "title":
+                return titleOrder;
+            case "publish-date":
+                return publishDateOrder;
+            default:
+                return null;
+        }
     }
 
     /**
-     * Create a mapping of books from the list of books.
-     * @param hits The list of books
-     * @return The mapping of books from 0 to N books
+     * Look up the books of the given IDs.
+     * @param bookIds The IDs of books in the storage
+     * @return The books
      */
-    Map<String, BookInfo> createMap(List<BookInfo> hits) {
-        Map<String, BookInfo> searchedBooks = new HashMap<>();
-        // Map to a unique ID for the hits
-        int id = 0;
-        for (BookInfo info : hits) {
-            searchedBooks.put(String.valueOf(id), info);
-            id++;
+    private List<BookInfo> lookup(int[] bookIds) {
+        List<BookInfo> result = new ArrayList<>(bookIds.length);
+        for (int id : bookIds) {
+            result.add(slots.get(id));
         }
-        return searchedBooks;
+        return result;
     }
 
     /**
-     * Sort the books by the given sorting strategy.
-     * @param hits The list of books to sort
+     * Create the hits of a search that are to be ordered by the given
+     * sorting strategy.
+     * @param hits The books found in no particular order
      * @param sort The sorting strategy
-     * @return If the strategy is invalid return null otherwise return the reordered list
+     * @return If the strategy is invalid return null otherwise return the hits
      */
-    List<BookInfo> sortBooks(List<BookInfo> hits, String sort) {
+    SearchHits createHits(List<BookInfo> hits, String sort) {
         switch (sort) {
             case "*":
-                break;
+                return new SearchHits(hits, null);
             case "title":
-                hits.sort(byTitle);
-                break;
+                return new SearchHits(hits, byTitle);
             case "publish-date":
-                hits.sort(byPublishDate);
-                break;
+                return new SearchHits(hits, byPublishDate);
             case "book-status":
-                hits = hits.stream().filter(BookInfo::hasCopiesAvailable)
-                        .collect(Collectors.toList());
-                break;
+                return new SearchHits(hits.stream()
+                        .filter(BookInfo::hasCopiesAvailable)
+                        .collect(Collectors.toList()), null);
             default:
                 return null;
         }
-        return hits;
+    }
+
+    /**
+     * Create the hits of a fuzzy search. Without a sorting strategy the
+     * closest books come first.
+     * @param hits The books found in no particular order
+     * @param distances The edits needed to match each book by ISBN
+     * @param sort The sorting strategy
+     * @return If the strategy is invalid return null otherwise return the hits
+     */
+    SearchHits createRankedHits(List<BookInfo> hits,
+                                Map<String, Integer> distances, String sort) {
+        if (!sort.equals("*")) {
+            return createHits(hits, sort);
+        }
+        Comparator<BookInfo> closest = Comparator.comparing(
+                book -> distances.get(book.getIsbn()));
+        return new SearchHits(hits, closest.thenComparing(byTitle));
+    }
+
+    /**
+     * Fold each of the authors of a search.
+     * @param authors The authors
+     * @return The folded authors
+     */
+    static List<String> fold(List<String> authors) {
+        List<String> folded = new ArrayList<>(authors.size());
+        for (String author : authors) {
+            folded.add(BookInfo.fold(author));
+        }
+        return folded;
     }
 
     /**
@@ -109,13 +670,17 @@ public abstract class BookStorage {
      * @param authors Authors from search
      * @param isbn ISBN from search
      * @param publisher Publisher from search
+     * @param folded If the title and authors are folded and compared with
+     *               the folded keys of the book
      * @return If the book info has completely matched through each filter
      */
     private boolean matchingFilter(BookInfo book, String title,
                                    List<String> authors,
-                                   String isbn, String publisher) {
-        String bookTitle = book.getTitle();
-        List<String> bookAuthors = book.getAuthors();
+                                   String isbn, String publisher,
+                                   boolean folded) {
+        String bookTitle = folded ? book.getFoldedTitle() : book.getTitle();
+        List<String> bookAuthors = folded ? book.getFoldedAuthors()
+                : book.getAuthors();
         String bookIsbn = book.getIsbn();
         String bookPublisher = book.getPublisher();
         String ignore = "*";
@@ -150,4 +715,51 @@ public abstract class BookStorage {
         }
         return true;
     }
+
+    /**
+     * Keep the books whose publish date and page count are in the ranges
+     * of a search, for books that were not found through the indexes.
+     * @param found The books
+     * @param published Range of years the books were published in
+     * @param pages Range of page counts
+     * @return The books in the ranges
+     */
+    static List<BookInfo> filterRanges(List<BookInfo> found, Range published,
+                                       Range pages) {
+        Range publishKeys = published.toPublishDateKeys();
+        return found.stream()
+                .filter(book -> inRanges(book, publishKeys, pages))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Determines if the publish date and page count of a book are in the
+     * ranges of a search.
+     * @param book Book info to compare with
+     * @param publishKeys Range of publish date keys
+     * @param pages Range of page counts
+     * @return If both are in their ranges
+     */
+    static boolean inRanges(BookInfo book, Range publishKeys, Range pages) {
+        return publishKeys.contains(book.getPublishDateKey())
+                && pages.contains(book.getPageCount());
+    }
+
+    /**
+     * A search parameter answered by an index, with an estimate of how many
+     * books pass it, a way to list the IDs that pass it in increasing order
+     * and a test of a single ID.
+     */
+    private static class IndexFilter {
+        private final int estimate;
+        private final Supplier<int[]> evaluate;
+        private final IntPredicate test;
+
+        IndexFilter(int estimate, Supplier<int[]> evaluate,
+                    IntPredicate test) {
+            this.estimate = estimate;
+            this.evaluate = evaluate;
+            this.test = test;
+        }
+    }
 }
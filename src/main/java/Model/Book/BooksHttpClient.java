@@ -0,0 +1,176 @@
+package Model.Book;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * HTTP client for book services that runs GET requests on a small pool of
+ * worker threads and returns futures. Every request has connect and read
+ * timeouts and an overall deadline. A request that misses its deadline or
+ * whose future is cancelled is aborted by disconnecting it. Response bodies
+ * are always read to the end and closed so that the connection goes back
+ * to the JDK keep-alive pool and is reused by the next request.
+ *
+ * @author Michael Kha
+ */
+class BooksHttpClient {
+
+    /**
+     * Reads the body of a successful response.
+     * @param <T> The type of the parsed body
+     */
+    interface ResponseHandler<T> {
+        /**
+         * Parse the body of a response.
+         * @param body The body of the response
+         * @return The parsed body
+         * @throws IOException If the body could not be read
+         */
+        T handle(InputStream body) throws IOException;
+    }
+
+    /**
+     * Workers that perform the requests
+     */
+    private ExecutorService workers;
+    /**
+     * Timer that enforces the deadlines
+     */
+    private ScheduledExecutorService timer;
+    /**
+     * Connect and read timeouts in milliseconds
+     */
+    private int connectTimeout;
+    private int readTimeout;
+
+    /**
+     * Create a client.
+     * @param threads Maximum number of requests in progress at once
+     * @param connectTimeout Connect timeout in milliseconds
+     * @param readTimeout Read timeout in milliseconds
+     */
+    BooksHttpClient(int threads, int connectTimeout, int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        workers = Executors.newFixedThreadPool(threads, daemonThreads("books-http"));
+        timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("books-http-timer"));
+    }
+
+    /**
+     * Perform a GET request.
+     * @param url The URL to request
+     * @param deadline Time in milliseconds the whole request may take
+     * @param handler Handler to parse the response body
+     * @param <T> The type of the parsed body
+     * @return The future parsed body. It completes exceptionally with a
+     *         TimeoutException if the deadline passes and cancelling it
+     *         aborts the request.
+     */
+    <T> CompletableFuture<T> get(URL url, long deadline, ResponseHandler<T> handler) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<HttpURLConnection> connection = new AtomicReference<>();
+        Future<?> task = workers.submit(() -> {
+            try {
+                result.complete(fetch(url, handler, connection));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        ScheduledFuture<?> timeout = timer.schedule(() -> result.completeExceptionally(
+                new TimeoutException("No response from " + url + " within "
+                        + deadline + " ms")), deadline, TimeUnit.MILLISECONDS);
+        result.whenComplete((value, error) -> {
+            timeout.cancel(false);
+            // Abort the request if it timed out or was cancelled. A request
+            // that succeeded completes the future from its own worker.
+            if (error != null && !task.isDone()) {
+                task.cancel(true);
+                HttpURLConnection conn = connection.get();
+                if (conn != null) {
+                    conn.disconnect();
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Stop the worker threads. Requests in progress are aborted.
+     */
+    void shutdown() {
+        workers.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * Perform the request on the current thread.
+     * @param url The URL to request
+     * @param handler Handler to parse the response body
+     * @param connection Holder for the connection so it can be aborted
+     * @param <T> The type of the parsed body
+     * @return The parsed body
+     * @throws IOException If the request failed or the status is not 200
+     */
+    private <T> T fetch(URL url, ResponseHandler<T> handler,
+                        AtomicReference<HttpURLConnection> connection)
+            throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        connection.set(conn);
+        conn.setRequestMethod("GET");
+        conn.setConnectTimeout(connectTimeout);
+        conn.setReadTimeout(readTimeout);
+        int status = conn.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            drain(conn.getErrorStream());
+            throw new IOException("HTTP " + status + " from " + url);
+        }
+        try (InputStream body = conn.getInputStream()) {
+            T value = handler.handle(body);
+            drain(body);
+            return value;
+        }
+    }
+
+    /**
+     * Read the rest of a body so the connection can be reused.
+     * @param body The body or null if there is none
+     * @throws IOException If the body could not be read
+     */
+    private void drain(InputStream body) throws IOException {
+        if (body == null) {
+            return;
+        }
+        byte[] buffer = new byte[4096];
+        while (body.read(buffer) != -1) {
+            // Discard
+        }
+        body.close();
+    }
+
+    /**
+     * Create a factory of named daemon threads.
+     * @param name Prefix of the thread names
+     * @return The thread factory
+     */
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,7 +1,13 @@
 package Model.Book;
 
-import java.io.*;
-import java.util.*;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Reads a properly formatted books file to initialize BookInfo objects to be
@@ -15,6 +21,29 @@ public class Bookstore extends BookStorage implements Serializable {
      * The file path of the books file
      */
     private static final String STORE_PATH = "assets/books.txt";
+    /**
+     * The file path of the compiled books file
+     */
+    private static final String SNAPSHOT_PATH = "assets/books.bin";
+    /**
+     * System property that selects how the catalog is stored. "heap" (the
+     * default) keeps indexed book info, "columnar" keeps parallel arrays and
+     * "offheap" leaves the books in the memory mapped compiled books file.
+     */
+    private static final String STORAGE_PROPERTY = "lbms.bookstore.storage";
+    private static final String COLUMNAR_STORAGE = "columnar";
+    private static final String OFF_HEAP_STORAGE = "offheap";
+
+    /**
+     * Storage that holds the catalog instead of this bookstore when a
+     * different storage mode is selected
+     */
+    private BookStorage backend;
+    /**
+     * Lines per second the books file was read at or 0 if the books were
+     * read from the compiled books file
+     */
+    private long loadRate;
 
     /**
      * Create a new bookstore by initializing the state.
@@ -25,49 +54,144 @@ public class Bookstore extends BookStorage implements Serializable {
     }
 
     /**
-     * Initialize the state of the bookstore by reading a book file.
+     * Initialize the state of the bookstore by reading the compiled books
+     * file. If it is missing or out of date, the books file is read instead
+     * and compiled for the next start. Only the off-heap storage starts
+     * with just a mapping of the compiled books file. The heap and columnar
+     * storages are saved parsing the text and the publish dates, but still
+     * build their search indexes from the books on every start.
      */
     private void init() {
-        try (BufferedReader br = new BufferedReader(new FileReader(new File(STORE_PATH)))) {
-            String line;
-            BookInfo bookInfo;
-            while ((line = br.readLine()) != null) {
-                bookInfo = generateBookInfoFromLine(line);
-                books.put(bookInfo.getIsbn(), bookInfo);
+        Path source = Paths.get(STORE_PATH);
+        Path snapshot = Paths.get(SNAPSHOT_PATH);
+        String mode = System.getProperty(STORAGE_PROPERTY);
+        CatalogSnapshot compiled = openSnapshot(snapshot, source);
+        List<BookInfo> catalog = null;
+        if (compiled == null) {
+            catalog = loadSource(source);
+            compiled = compile(snapshot, source, catalog);
+        }
+        if (OFF_HEAP_STORAGE.equals(mode) && compiled != null) {
+            // Books read to compile the snapshot are not kept, and the pool
+            // only holds their authors and publishers weakly
+            backend = new OffHeapBookStorage(compiled);
+            return;
+        }
+        if (catalog == null) {
+            catalog = compiled.readAll();
+        }
+        if (COLUMNAR_STORAGE.equals(mode)) {
+            backend = new ColumnarBookStorage(catalog);
+            return;
+        }
+        for (BookInfo bookInfo : catalog) {
+            addBook(bookInfo);
+        }
+    }
+
+    /**
+     * Open the compiled books file.
+     * @param snapshot Path of the compiled books file
+     * @param source Path of the books file
+     * @return The compiled books or null if missing, out of date or unreadable
+     */
+    private CatalogSnapshot openSnapshot(Path snapshot, Path source) {
+        try {
+            return CatalogSnapshot.open(snapshot, source);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Compile the books read from the books file for the next start.
+     * @param snapshot Path of the compiled books file
+     * @param source Path of the books file
+     * @param catalog The books in the books file
+     * @return The compiled books or null if they could not be written
+     */
+    private CatalogSnapshot compile(Path snapshot, Path source,
+                                    List<BookInfo> catalog) {
+        try {
+            CatalogSnapshot.write(snapshot, source, catalog);
+            return CatalogSnapshot.open(snapshot, source);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Search the catalog using the selected storage.
+     * @param title Title search parameter
+     * @param authors Authors search parameter
+     * @param isbn ISBN search parameter
+     * @param publisher Publisher search parameter
+     * @param sort Sort the search by either title or publish-date
+     * @param match How the title and authors are matched
+     * @param published Range of years the books were published in
+     * @param pages Range of page counts
+     * @return The hits or null if the sort is invalid
+     */
+    @Override
+    public SearchHits findBooks(String title, List<String> authors,
+                                String isbn, String publisher, String sort,
+                                Match match, Range published, Range pages) {
+        if (backend != null) {
+            return backend.findBooks(title, authors, isbn, publisher, sort,
+                    match, published, pages);
+        }
+        return super.findBooks(title, authors, isbn, publisher, sort, match,
+                published, pages);
+    }
+
+    /**
+     * Check if the selected storage can search with the given match.
+     * @param match How the title and authors are matched
+     * @return If the match is supported
+     */
+    @Override
+    boolean supports(Match match) {
+        if (backend != null) {
+            return backend.supports(match);
+        }
+        return super.supports(match);
+    }
+
+    /**
+     * Read the books file. A book whose ISBN is repeated is replaced by its
+     * last entry but keeps the position of its first, as addBook does, so
+     * every storage mode finds the same books.
+     * @param source Path of the books file
+     * @return The books in the file with distinct ISBNs
+     */
+    private List<BookInfo> loadSource(Path source) {
+        CatalogLoader loader = new CatalogLoader(source);
+        try {
+            List<BookInfo> catalog = loader.load();
+            loadRate = loader.getLinesPerSecond();
+            Map<String, BookInfo> unique = new LinkedHashMap<>();
+            for (BookInfo book : catalog) {
+                unique.put(book.getIsbn(), book);
+            }
+            if (unique.size() < catalog.size()) {
+                catalog = new ArrayList<>(unique.values());
             }
+            return catalog;
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return new ArrayList<>();
     }
 
     /**
-     * Generate book info given a properly formatted line of info
-     * @param line Line of book info
-     * @return The book info that was generated
+     * Get the rate the books file was read at.
+     * @return Lines per second or 0 if the books were read from the
+     *         compiled books file
      */
-    private BookInfo generateBookInfoFromLine(String line) {
-        String isbn;
-        String title;
-        String publisher;
-        String publishDate;
-        int pageCount;
-        // First split by left and right brackets
-        String[] firstSplit = line.split("[{}]");
-        // Second item of array will be all authors in csv format
-        List<String> authors = new ArrayList<>(
-                Arrays.asList(firstSplit[1].split(",")));
-        // Split isbn and title
-        String[] isbnTitle = firstSplit[0].split(",(?!\\s)");
-        isbn = isbnTitle[0];
-        title = isbnTitle[1];
-        // Split publisher, publish date, page count
-        String[] publishing = firstSplit[2].split(",(?!\\s)");
-        publisher = publishing[1];
-        publishDate = publishing[2];
-        pageCount = Integer.parseInt(publishing[3]);
-        // Create book info
-        return new BookInfo(isbn, title, authors, publisher,
-                publishDate, pageCount);
+    long getLoadRate() {
+        return loadRate;
     }
 
     /**
@@ -77,7 +201,7 @@ public class Bookstore extends BookStorage implements Serializable {
      * @param bookIDs List of book IDs
      * @return The list of book info that has been purchased
      */
-    public List<BookInfo> purchaseBooks(Map<String, BookInfo> search,
+    public List<BookInfo> purchaseBooks(SearchResult search,
                                         int quantity, List<String> bookIDs) {
         List<BookInfo> bookInfoList = new ArrayList<>();
         for (String book : bookIDs) {
@@ -0,0 +1,268 @@
+package Model.Book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Loads a properly formatted books file by memory mapping it, splitting it
+ * into line aligned chunks and parsing the chunks in parallel. Lines are
+ * parsed by scanning for the delimiters instead of using regular
+ * expressions. Each line has the format:
+ * isbn,"title",{author[,author]},"publisher",publish-date,page-count
+ *
+ * @author Michael Kha
+ */
+class CatalogLoader {
+
+    /**
+     * Smallest chunk worth handing to another thread
+     */
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Path of the books file
+     */
+    private Path path;
+    /**
+     * Number of lines read by the last load
+     */
+    private long lines;
+    /**
+     * Time taken by the last load in nanoseconds
+     */
+    private long elapsed;
+
+    /**
+     * Create a loader for the given books file.
+     * @param path The path of the books file
+     */
+    CatalogLoader(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Load all the books in the file.
+     * @return The books in the order they appear in the file
+     * @throws IOException If the file could not be read
+     */
+    List<BookInfo> load() throws IOException {
+        long start = System.nanoTime();
+        List<List<BookInfo>> parsed;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = splitChunks(channel);
+            List<Integer> chunks = new ArrayList<>();
+            for (int i = 0; i < bounds.length - 1; i++) {
+                chunks.add(i);
+            }
+            parsed = chunks.parallelStream()
+                    .map(i -> parseChunk(channel, bounds[i], bounds[i + 1]))
+                    .collect(Collectors.toList());
+        }
+        List<BookInfo> books = new ArrayList<>();
+        lines = 0;
+        for (List<BookInfo> chunk : parsed) {
+            books.addAll(chunk);
+            lines += chunk.size();
+        }
+        elapsed = System.nanoTime() - start;
+        return books;
+    }
+
+    /**
+     * Get the throughput of the last load.
+     * @return The number of lines loaded per second
+     */
+    long getLinesPerSecond() {
+        if (elapsed == 0) {
+            return 0;
+        }
+        return lines * 1_000_000_000L / elapsed;
+    }
+
+    /**
+     * Split the file into chunks that each start at the beginning of a line.
+     * @param channel The channel of the file
+     * @return The offsets of the chunks followed by the end of the file
+     * @throws IOException If the file could not be read
+     */
+    private long[] splitChunks(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int count = (int) Math.max(1, Math.min(
+                Runtime.getRuntime().availableProcessors() * 4L,
+                size / MIN_CHUNK_SIZE));
+        long[] bounds = new long[count + 1];
+        bounds[count] = size;
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        for (int i = 1; i < count; i++) {
+            long offset = Math.max(size / count * i, bounds[i - 1]);
+            bounds[i] = nextLine(channel, offset, buffer);
+        }
+        return bounds;
+    }
+
+    /**
+     * Find the start of the line following the given offset.
+     * @param channel The channel of the file
+     * @param offset The offset to search from
+     * @param buffer Buffer to read into
+     * @return The offset after the next line feed or the end of the file
+     * @throws IOException If the file could not be read
+     */
+    private long nextLine(FileChannel channel, long offset, ByteBuffer buffer)
+            throws IOException {
+        long size = channel.size();
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parse every line of a chunk of the file.
+     * @param channel The channel of the file
+     * @param start Offset of the chunk
+     * @param end Offset after the chunk
+     * @return The books in the chunk
+     */
+    private List<BookInfo> parseChunk(FileChannel channel, long start, long end) {
+        List<BookInfo> books = new ArrayList<>();
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] line = new byte[256];
+        int length = 0;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n') {
+                addLine(books, line, length);
+                length = 0;
+                continue;
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = b;
+        }
+        addLine(books, line, length);
+        return books;
+    }
+
+    /**
+     * Parse a line and add its book to the list if the line is not blank.
+     * @param books The list to add to
+     * @param line The bytes of the line
+     * @param length The length of the line
+     */
+    private void addLine(List<BookInfo> books, byte[] line, int length) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        if (length > 0) {
+            books.add(parseLine(line, length));
+        }
+    }
+
+    /**
+     * Generate book info given a properly formatted line of info. The fields
+     * are found by scanning for the delimiters: the ISBN ends at the first
+     * comma, the authors are between the braces and the publish date and
+     * page count follow the last two commas.
+     * @param line The bytes of the line
+     * @param length The length of the line
+     * @return The book info that was generated
+     */
+    static BookInfo parseLine(byte[] line, int length) {
+        int isbnEnd = indexOf(line, 0, length, (byte) ',');
+        int open = indexOf(line, isbnEnd, length, (byte) '{');
+        int close = lastIndexOf(line, length, (byte) '}');
+        int pagesStart = lastIndexOf(line, length, (byte) ',') + 1;
+        int dateStart = lastIndexOf(line, pagesStart - 1, (byte) ',') + 1;
+        String isbn = string(line, 0, isbnEnd);
+        // Title is followed by a comma before the authors
+        String title = string(line, isbnEnd + 1, open - 1);
+        // Authors are in csv format
+        List<String> authors = new ArrayList<>();
+        int authorStart = open + 1;
+        for (int i = authorStart; i <= close; i++) {
+            if (i == close || line[i] == ',') {
+                authors.add(string(line, authorStart, i));
+                authorStart = i + 1;
+            }
+        }
+        // Publisher is between the authors and the publish date
+        String publisher = string(line, close + 2, dateStart - 1);
+        String publishDate = string(line, dateStart, pagesStart - 1);
+        int pageCount = 0;
+        for (int i = pagesStart; i < length; i++) {
+            pageCount = pageCount * 10 + (line[i] - '0');
+        }
+        return new BookInfo(isbn, title, authors, publisher,
+                publishDate, pageCount);
+    }
+
+    /**
+     * Find the first index of a byte.
+     * @param line The bytes to search
+     * @param from Index to start from
+     * @param to Index to stop before
+     * @param b The byte to find
+     * @return The index of the byte or the stop index if not found
+     */
+    private static int indexOf(byte[] line, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (line[i] == b) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Find the last index of a byte.
+     * @param line The bytes to search
+     * @param before Index to search before
+     * @param b The byte to find
+     * @return The index of the byte or -1 if not found
+     */
+    private static int lastIndexOf(byte[] line, int before, byte b) {
+        for (int i = before - 1; i >= 0; i--) {
+            if (line[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decode part of the line into a string.
+     * @param line The UTF-8 bytes of the line
+     * @param from Index to start from
+     * @param to Index to stop before
+     * @return The decoded string
+     */
+    private static String string(byte[] line, int from, int to) {
+        return new String(line, from, to - from, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,556 @@
+package Model.Book;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled binary form of the books file that can be memory mapped and
+ * read without parsing. The file starts with a header that records the size
+ * and modification time of the books file it was compiled from and the
+ * length of the snapshot itself, followed by
+ * int columns indexed by book ID, an ISBN index and a table of length
+ * prefixed UTF-8 strings that the columns refer to.
+ *
+ * Layout after the header, in order:
+ * isbn[n], title[n], publisher[n], publishDate[n], publishDateKey[n],
+ * pageCount[n], authorStart[n + 1], authors[m], isbnOrder[n],
+ * titleOrder[n], publishDateOrder[n], stringOffsets[s], string data.
+ * Offsets are ints, so a snapshot is limited to 2 GB.
+ *
+ * The ISBN index and the orders are searched in place by the off-heap
+ * storage, which is the only storage that starts with just the mapping.
+ * The storages that read the books onto the heap skip parsing the text and
+ * the publish dates but still build their own indexes on every start.
+ *
+ * @author Michael Kha
+ */
+class CatalogSnapshot {
+
+    /**
+     * Identifies the file format ("LBMC") and its version
+     */
+    private static final int MAGIC = 0x4C424D43;
+    private static final int VERSION = 4;
+    /**
+     * Size of the header in bytes
+     */
+    private static final int HEADER_SIZE = 40;
+
+    /**
+     * The mapped snapshot file
+     */
+    private ByteBuffer buffer;
+    /**
+     * Number of books, author references and strings
+     */
+    private int size;
+    private int authorCount;
+    private int stringCount;
+    /**
+     * Byte offsets of each section
+     */
+    private int isbnColumn;
+    private int titleColumn;
+    private int publisherColumn;
+    private int publishDateColumn;
+    private int publishDateKeyColumn;
+    private int pageCountColumn;
+    private int authorStartColumn;
+    private int authorColumn;
+    private int isbnOrderColumn;
+    private int titleOrderColumn;
+    private int publishDateOrderColumn;
+    private int stringOffsetColumn;
+
+    /**
+     * Create a snapshot over a mapped file with a valid header.
+     * @param buffer The mapped file
+     */
+    private CatalogSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        size = buffer.getInt(24);
+        authorCount = buffer.getInt(28);
+        stringCount = buffer.getInt(32);
+        isbnColumn = HEADER_SIZE;
+        titleColumn = isbnColumn + 4 * size;
+        publisherColumn = titleColumn + 4 * size;
+        publishDateColumn = publisherColumn + 4 * size;
+        publishDateKeyColumn = publishDateColumn + 4 * size;
+        pageCountColumn = publishDateKeyColumn + 4 * size;
+        authorStartColumn = pageCountColumn + 4 * size;
+        authorColumn = authorStartColumn + 4 * (size + 1);
+        isbnOrderColumn = authorColumn + 4 * authorCount;
+        titleOrderColumn = isbnOrderColumn + 4 * size;
+        publishDateOrderColumn = titleOrderColumn + 4 * size;
+        stringOffsetColumn = publishDateOrderColumn + 4 * size;
+    }
+
+    /**
+     * Open the snapshot if it was compiled from the current books file.
+     * @param snapshot Path of the snapshot
+     * @param source Path of the books file
+     * @return The snapshot or null if it does not exist, is out of date or
+     *         is not as long as its header says
+     * @throws IOException If the files could not be read
+     */
+    static CatalogSnapshot open(Path snapshot, Path source) throws IOException {
+        if (!Files.exists(snapshot)) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        // A snapshot cut short by a crash while writing has a different length
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(36) != buffer.capacity()
+                || buffer.getLong(8) != Files.size(source)
+                || buffer.getLong(16) != Files.getLastModifiedTime(source).toMillis()) {
+            return null;
+        }
+        return new CatalogSnapshot(buffer);
+    }
+
+    /**
+     * Compile the books into a snapshot of the books file. The snapshot is
+     * written to a temporary file that then replaces the snapshot, so a
+     * crash while writing never leaves a partial snapshot behind.
+     * @param snapshot Path to write the snapshot to
+     * @param source Path of the books file the books were read from
+     * @param books The books in the books file
+     * @throws IOException If the snapshot could not be written
+     */
+    static void write(Path snapshot, Path source, List<BookInfo> books)
+            throws IOException {
+        int n = books.size();
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        int[] isbns = new int[n];
+        int[] titles = new int[n];
+        int[] publishers = new int[n];
+        int[] publishDates = new int[n];
+        int[] authorStarts = new int[n + 1];
+        List<Integer> authors = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            BookInfo book = books.get(i);
+            isbns[i] = intern(strings, book.getIsbn());
+            titles[i] = intern(strings, book.getTitle());
+            publishers[i] = intern(strings, book.getPublisher());
+            publishDates[i] = intern(strings, book.getPublishDate());
+            authorStarts[i] = authors.size();
+            for (String author : book.getAuthors()) {
+                authors.add(intern(strings, author));
+            }
+        }
+        authorStarts[n] = authors.size();
+        Comparator<Integer> byIsbn = Comparator.comparing(i -> books.get(i).getIsbn());
+        Comparator<Integer> byTitle = Comparator.comparing(i -> books.get(i).getTitle());
+        Comparator<Integer> byDate = (i, j) -> Integer.compare(
+                books.get(j).getPublishDateKey(), books.get(i).getPublishDateKey());
+        Integer[] isbnOrder = order(n, byIsbn);
+        Integer[] titleOrder = order(n, byTitle.thenComparing(byIsbn));
+        Integer[] publishDateOrder = order(n, byDate.thenComparing(byIsbn));
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        // Each string has an offset, a length prefix and its bytes
+        long length = HEADER_SIZE + 4L * (10L * n + 1 + authors.size());
+        for (String string : strings.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            length += 8 + bytes.length;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Catalog is too large for a snapshot");
+        }
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(Files.size(source));
+                out.writeLong(Files.getLastModifiedTime(source).toMillis());
+                out.writeInt(n);
+                out.writeInt(authors.size());
+                out.writeInt(encoded.size());
+                out.writeInt((int) length);
+                writeInts(out, isbns);
+                writeInts(out, titles);
+                writeInts(out, publishers);
+                writeInts(out, publishDates);
+                for (BookInfo book : books) {
+                    out.writeInt(book.getPublishDateKey());
+                }
+                for (BookInfo book : books) {
+                    out.writeInt(book.getPageCount());
+                }
+                writeInts(out, authorStarts);
+                for (int author : authors) {
+                    out.writeInt(author);
+                }
+                writeInts(out, isbnOrder);
+                writeInts(out, titleOrder);
+                writeInts(out, publishDateOrder);
+                // String offsets point at the length prefix of each string
+                int offset = out.size() + 4 * encoded.size();
+                for (byte[] bytes : encoded) {
+                    out.writeInt(offset);
+                    offset += 4 + bytes.length;
+                }
+                for (byte[] bytes : encoded) {
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+            Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Get the number of books in the snapshot.
+     * @return The number of books
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Read every book in the snapshot. Each string in the table is decoded
+     * once and shared by all the books that refer to it, and the publish
+     * date keys are taken from their column instead of parsed again.
+     * @return The books in their original order
+     */
+    List<BookInfo> readAll() {
+        String[] table = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            table[i] = string(i);
+        }
+        StringPool pool = StringPool.getInstance();
+        List<BookInfo> books = new ArrayList<>(size);
+        for (int id = 0; id < size; id++) {
+            List<String> authors = new ArrayList<>();
+            for (int a = authorStart(id); a < authorStart(id + 1); a++) {
+                authors.add(table[intAt(authorColumn, a)]);
+            }
+            books.add(new BookInfo(table[intAt(isbnColumn, id)],
+                    table[intAt(titleColumn, id)], pool.authors(authors),
+                    table[intAt(publisherColumn, id)],
+                    table[intAt(publishDateColumn, id)],
+                    intAt(publishDateKeyColumn, id),
+                    intAt(pageCountColumn, id)));
+        }
+        return books;
+    }
+
+    /**
+     * Find a book by its ISBN using the ISBN index.
+     * @param isbn The ISBN to find
+     * @return The book ID or -1 if there is no such book
+     */
+    int find(String isbn) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = intAt(isbnOrderColumn, mid);
+            int cmp = string(intAt(isbnColumn, id)).compareTo(isbn);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decode a single book. The strings are not pooled, so a hit only stays
+     * on the heap while it is used.
+     * @param id The book ID
+     * @return The book info
+     */
+    BookInfo get(int id) {
+        return new BookInfo(string(intAt(isbnColumn, id)), title(id),
+                Collections.unmodifiableList(authors(id)),
+                string(intAt(publisherColumn, id)),
+                string(intAt(publishDateColumn, id)),
+                intAt(publishDateKeyColumn, id), intAt(pageCountColumn, id));
+    }
+
+    /**
+     * Decode the title of a book.
+     * @param id The book ID
+     * @return The title
+     */
+    String title(int id) {
+        return string(intAt(titleColumn, id));
+    }
+
+    /**
+     * Decode the authors of a book.
+     * @param id The book ID
+     * @return The authors
+     */
+    List<String> authors(int id) {
+        List<String> authors = new ArrayList<>();
+        for (int a = authorStart(id); a < authorStart(id + 1); a++) {
+            authors.add(string(intAt(authorColumn, a)));
+        }
+        return authors;
+    }
+
+    /**
+     * Get the publish date key of a book.
+     * @param id The book ID
+     * @return The publish date key
+     */
+    int publishDateKey(int id) {
+        return intAt(publishDateKeyColumn, id);
+    }
+
+    /**
+     * Get the page count of a book.
+     * @param id The book ID
+     * @return The page count
+     */
+    int pageCount(int id) {
+        return intAt(pageCountColumn, id);
+    }
+
+    /**
+     * Find the books with a publish date key in a range by binary searching
+     * the publish date order.
+     * @param lowKey Lowest publish date key
+     * @param highKey Highest publish date key
+     * @return The book IDs
+     */
+    BitSet publishedIn(int lowKey, int highKey) {
+        BitSet result = new BitSet(size);
+        int start = highKey == Integer.MAX_VALUE ? 0
+                : publishedBefore(highKey + 1);
+        for (int i = start, end = publishedBefore(lowKey); i < end; i++) {
+            result.set(publishDateOrder(i));
+        }
+        return result;
+    }
+
+    /**
+     * Find the first position in publish date order, newest first, whose
+     * book has a publish date key less than the given key.
+     * @param key The publish date key
+     * @return The position
+     */
+    private int publishedBefore(int key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (publishDateKey(publishDateOrder(mid)) >= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the book at a position when ordered by title.
+     * @param index The position
+     * @return The book ID
+     */
+    int titleOrder(int index) {
+        return intAt(titleOrderColumn, index);
+    }
+
+    /**
+     * Get the book at a position when ordered by publish date, newest first.
+     * @param index The position
+     * @return The book ID
+     */
+    int publishDateOrder(int index) {
+        return intAt(publishDateOrderColumn, index);
+    }
+
+    /**
+     * Check if a book's title contains the query without decoding it.
+     * @param id The book ID
+     * @param query The UTF-8 bytes of the query
+     * @return If the title contains the query
+     */
+    boolean titleContains(int id, byte[] query) {
+        return contains(intAt(titleColumn, id), query);
+    }
+
+    /**
+     * Check if a book's publisher equals the query without decoding it.
+     * @param id The book ID
+     * @param query The UTF-8 bytes of the query
+     * @return If the publisher equals the query
+     */
+    boolean publisherEquals(int id, byte[] query) {
+        int offset = intAt(stringOffsetColumn, intAt(publisherColumn, id));
+        return buffer.getInt(offset) == query.length
+                && regionMatches(offset + 4, query);
+    }
+
+    /**
+     * Check if any of a book's authors contains the query without decoding
+     * them.
+     * @param id The book ID
+     * @param query The UTF-8 bytes of the query
+     * @return If an author contains the query
+     */
+    boolean authorContains(int id, byte[] query) {
+        for (int a = authorStart(id); a < authorStart(id + 1); a++) {
+            if (contains(intAt(authorColumn, a), query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a string in the table contains the query. Comparing UTF-8
+     * bytes gives the same result as comparing the decoded strings.
+     * @param index Index of the string
+     * @param query The UTF-8 bytes of the query
+     * @return If the string contains the query
+     */
+    private boolean contains(int index, byte[] query) {
+        int offset = intAt(stringOffsetColumn, index);
+        int length = buffer.getInt(offset);
+        for (int i = 0; i + query.length <= length; i++) {
+            if (regionMatches(offset + 4 + i, query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the bytes at an offset equal the query.
+     * @param offset Byte offset in the file
+     * @param query The bytes to compare
+     * @return If the bytes match
+     */
+    private boolean regionMatches(int offset, byte[] query) {
+        for (int i = 0; i < query.length; i++) {
+            if (buffer.get(offset + i) != query[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the start of a book's authors in the author column.
+     * @param id The book ID
+     * @return The index of the first author reference
+     */
+    private int authorStart(int id) {
+        return intAt(authorStartColumn, id);
+    }
+
+    /**
+     * Read an int from a column.
+     * @param column Byte offset of the column
+     * @param index Index into the column
+     * @return The int at the index
+     */
+    private int intAt(int column, int index) {
+        return buffer.getInt(column + 4 * index);
+    }
+
+    /**
+     * Decode a string from the string table.
+     * @param index Index of the string
+     * @return The decoded string
+     */
+    private String string(int index) {
+        int offset = intAt(stringOffsetColumn, index);
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + 4);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the index of a string in the string table, adding it if needed.
+     * @param strings The string table
+     * @param string The string
+     * @return The index of the string
+     */
+    private static int intern(Map<String, Integer> strings, String string) {
+        Integer index = strings.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.put(string, index);
+        }
+        return index;
+    }
+
+    /**
+     * Order all book IDs.
+     * @param n Number of books
+     * @param comparator Comparator of book IDs
+     * @return The ordered IDs
+     */
+    private static Integer[] order(int n, Comparator<Integer> comparator) {
+        Integer[] ids = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        Arrays.sort(ids, comparator);
+        return ids;
+    }
+
+    /**
+     * Write a column of book IDs.
+     * @param out The stream to write to
+     * @param ids The book IDs
+     * @throws IOException If the stream could not be written
+     */
+    private static void writeInts(DataOutputStream out, Integer[] ids)
+            throws IOException {
+        for (int id : ids) {
+            out.writeInt(id);
+        }
+    }
+
+    /**
+     * Write an int column.
+     * @param out The stream to write to
+     * @param column The column
+     * @throws IOException If the stream could not be written
+     */
+    private static void writeInts(DataOutputStream out, int[] column)
+            throws IOException {
+        for (int value : column) {
+            out.writeInt(value);
+        }
+    }
+}
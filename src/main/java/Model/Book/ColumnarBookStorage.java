@@ -0,0 +1,363 @@
+package Model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Book storage for a fixed catalog that keeps the books as parallel arrays
+ * indexed by an int book ID instead of one object graph per book. Searches
+ * scan the arrays sequentially and only create book info for the hits.
+ * Sorted searches walk ID arrays that are ordered once when the storage is
+ * built. Fuzzy searches measure only the books found through n-gram
+ * indexes of the titles and authors.
+ *
+ * @author Michael Kha
+ */
+class ColumnarBookStorage extends BookStorage {
+
+    /**
+     * Number of books
+     */
+    private int size;
+    /**
+     * Book columns indexed by book ID
+     */
+    private String[] isbns;
+    private String[] titles;
+    private String[] publishers;
+    private String[] publishDates;
+    private int[] publishDateKeys;
+    private int[] pageCounts;
+    /**
+     * The authors of book i are authors[authorStart[i]] up to but not
+     * including authors[authorStart[i + 1]]
+     */
+    private int[] authorStart;
+    private String[] authors;
+    /**
+     * Titles and authors folded to lower case without accents
+     */
+    private String[] foldedTitles;
+    private String[] foldedAuthors;
+    /**
+     * Book IDs ordered by ISBN, title and publish date
+     */
+    private int[] isbnOrder;
+    private int[] titleOrder;
+    private int[] publishDateOrder;
+    /**
+     * Book IDs ordered by publish date key and by page count for range
+     * searches
+     */
+    private RangeIndex publishDateRange;
+    private RangeIndex pageCountRange;
+    /**
+     * Trigram indexes over the titles and authors for fuzzy searches
+     */
+    private NGramIndex titleIndex;
+    private NGramIndex authorIndex;
+
+    /**
+     * Create the storage from the books of a catalog.
+     * @param catalog The books to store, which must have distinct ISBNs
+     */
+    ColumnarBookStorage(List<BookInfo> catalog) {
+        super();
+        size = catalog.size();
+        isbns = new String[size];
+        titles = new String[size];
+        publishers = new String[size];
+        publishDates = new String[size];
+        publishDateKeys = new int[size];
+        pageCounts = new int[size];
+        authorStart = new int[size + 1];
+        int authorCount = 0;
+        for (BookInfo book : catalog) {
+            authorCount += book.getAuthors().size();
+        }
+        authors = new String[authorCount];
+        foldedTitles = new String[size];
+        foldedAuthors = new String[authorCount];
+        int a = 0;
+        for (int id = 0; id < size; id++) {
+            BookInfo book = catalog.get(id);
+            isbns[id] = book.getIsbn();
+            titles[id] = book.getTitle();
+            publishers[id] = book.getPublisher();
+            publishDates[id] = book.getPublishDate();
+            publishDateKeys[id] = book.getPublishDateKey();
+            pageCounts[id] = book.getPageCount();
+            foldedTitles[id] = book.getFoldedTitle();
+            authorStart[id] = a;
+            for (int i = 0; i < book.getAuthors().size(); i++) {
+                authors[a] = book.getAuthors().get(i);
+                foldedAuthors[a] = book.getFoldedAuthors().get(i);
+                a++;
+            }
+        }
+        authorStart[size] = a;
+        titleIndex = new NGramIndex();
+        authorIndex = new NGramIndex();
+        for (int id = 0; id < size; id++) {
+            titleIndex.add(id, Collections.singletonList(titles[id]));
+            authorIndex.add(id, Arrays.asList(authors).subList(
+                    authorStart[id], authorStart[id + 1]));
+        }
+        Comparator<Integer> byIsbn = Comparator.comparing(id -> isbns[id]);
+        isbnOrder = order(byIsbn);
+        Comparator<Integer> byTitle = Comparator.comparing(id -> titles[id]);
+        titleOrder = order(byTitle.thenComparing(byIsbn));
+        Comparator<Integer> byDate = (i, j) ->
+                Integer.compare(publishDateKeys[j], publishDateKeys[i]);
+        publishDateOrder = order(byDate.thenComparing(byIsbn));
+        int[] ids = new int[size];
+        for (int id = 0; id < size; id++) {
+            ids[id] = id;
+        }
+        publishDateRange = new RangeIndex(publishDateKeys, ids, size);
+        pageCountRange = new RangeIndex(pageCounts, ids, size);
+    }
+
+    /**
+     * Search the books by scanning the columns.
+     * @param title Title search parameter
+     * @param authors Authors search parameter
+     * @param isbn ISBN search parameter
+     * @param publisher Publisher search parameter
+     * @param sort Sort the search by either title or publish-date
+     * @param match How the title and authors are matched
+     * @param published Range of years the books were published in
+     * @param pages Range of page counts
+     * @return The hits or null if the sort is invalid
+     */
+    @Override
+    public SearchHits findBooks(String title, List<String> authors,
+                                String isbn, String publisher, String sort,
+                                Match match, Range published, Range pages) {
+        BitSet inRanges = findInRanges(published.toPublishDateKeys(), pages);
+        if (match == Match.FUZZY) {
+            return findFuzzy(new FuzzyQuery(title, authors), isbn, publisher,
+                    sort, inRanges);
+        }
+        boolean folded = match == Match.FOLDED;
+        if (folded) {
+            title = BookInfo.fold(title);
+            authors = fold(authors);
+        }
+        BitSet matches = new BitSet(size);
+        if (!isbn.equals("*")) {
+            int id = find(isbn);
+            if (id >= 0 && (inRanges == null || inRanges.get(id))
+                    && matches(id, title, authors, publisher, folded)) {
+                matches.set(id);
+            }
+        } else if (inRanges != null) {
+            for (int id = inRanges.nextSetBit(0); id >= 0;
+                 id = inRanges.nextSetBit(id + 1)) {
+                if (matches(id, title, authors, publisher, folded)) {
+                    matches.set(id);
+                }
+            }
+        } else {
+            for (int id = 0; id < size; id++) {
+                if (matches(id, title, authors, publisher, folded)) {
+                    matches.set(id);
+                }
+            }
+        }
+        List<BookInfo> hits = new ArrayList<>(matches.cardinality());
+        int[] order = orderOf(sort);
+        if (order != null) {
+            for (int id : order) {
+                if (matches.get(id)) {
+                    hits.add(view(id));
+                }
+            }
+            return new SearchHits(hits, null);
+        }
+        for (int id = matches.nextSetBit(0); id >= 0;
+             id = matches.nextSetBit(id + 1)) {
+            hits.add(view(id));
+        }
+        return createHits(hits, sort);
+    }
+
+    /**
+     * Find the books within a few edits of the title and authors. The
+     * n-gram indexes give the books sharing enough n-grams with every term
+     * and only those are measured.
+     * @param query The title and authors
+     * @param isbn ISBN search parameter
+     * @param publisher Publisher search parameter
+     * @param sort The sorting strategy
+     * @param inRanges The books in the ranges of the search or null if
+     *                 there are no ranges
+     * @return The hits or null if the sort is invalid
+     */
+    private SearchHits findFuzzy(FuzzyQuery query, String isbn,
+                                 String publisher, String sort,
+                                 BitSet inRanges) {
+        int[] ids = null;
+        if (!isbn.equals("*")) {
+            int id = find(isbn);
+            ids = id < 0 ? new int[0] : new int[] {id};
+        } else {
+            ids = findSimilar(query, titleIndex, authorIndex, size);
+        }
+        if (inRanges != null) {
+            ids = ids == null ? inRanges.stream().toArray()
+                    : retain(ids, inRanges::get);
+        }
+        List<String> authorColumn = Arrays.asList(authors);
+        List<BookInfo> hits = new ArrayList<>();
+        Map<String, Integer> distances = new HashMap<>();
+        int count = ids == null ? size : ids.length;
+        for (int i = 0; i < count; i++) {
+            int id = ids == null ? i : ids[i];
+            if (!matches(id, "*", Collections.emptyList(), publisher, false)) {
+                continue;
+            }
+            int distance = query.distance(titles[id], authorColumn.subList(
+                    authorStart[id], authorStart[id + 1]));
+            if (distance >= 0) {
+                hits.add(view(id));
+                distances.put(isbns[id], distance);
+            }
+        }
+        return createRankedHits(hits, distances, sort);
+    }
+
+    /**
+     * Find the books whose publish date key and page count are in the
+     * ranges of a search by binary searching the range indexes.
+     * @param publishKeys Range of publish date keys
+     * @param pages Range of page counts
+     * @return The book IDs or null if neither range restricts the search
+     */
+    private BitSet findInRanges(Range publishKeys, Range pages) {
+        int[] found = null;
+        if (!publishKeys.isAll()) {
+            found = publishDateRange.find(publishKeys);
+        }
+        if (!pages.isAll()) {
+            int[] paged = pageCountRange.find(pages);
+            found = found == null ? paged : intersect(found, paged);
+        }
+        if (found == null) {
+            return null;
+        }
+        BitSet result = new BitSet(size);
+        for (int id : found) {
+            result.set(id);
+        }
+        return result;
+    }
+
+    /**
+     * Determines a matching between a book and the search parameters with
+     * the same rules as the other storages. The ISBN is checked separately.
+     * @param id The book ID
+     * @param title Title from search
+     * @param queryAuthors Authors from search
+     * @param publisher Publisher from search
+     * @param folded If the title and authors are folded and compared with
+     *               the folded columns
+     * @return If the book has completely matched through each filter
+     */
+    private boolean matches(int id, String title, List<String> queryAuthors,
+                            String publisher, boolean folded) {
+        String[] titleColumn = folded ? foldedTitles : titles;
+        String[] authorColumn = folded ? foldedAuthors : authors;
+        if (!title.equals("*") && !titleColumn[id].contains(title)) {
+            return false;
+        }
+        if (!publisher.equals("*") && !publishers[id].equals(publisher)) {
+            return false;
+        }
+        for (String author : queryAuthors) {
+            boolean found = false;
+            for (int a = authorStart[id]; a < authorStart[id + 1] && !found; a++) {
+                found = authorColumn[a].contains(author);
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create book info for a book. The columns hold pooled strings so the
+     * book info shares them.
+     * @param id The book ID
+     * @return The book info
+     */
+    private BookInfo view(int id) {
+        List<String> bookAuthors = StringPool.getInstance().authors(Arrays.asList(
+                Arrays.copyOfRange(authors, authorStart[id], authorStart[id + 1])));
+        return new BookInfo(isbns[id], titles[id], bookAuthors, publishers[id],
+                publishDates[id], publishDateKeys[id], pageCounts[id]);
+    }
+
+    /**
+     * Find a book by its ISBN.
+     * @param isbn The ISBN
+     * @return The book ID or -1 if there is no such book
+     */
+    private int find(String isbn) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = isbns[isbnOrder[mid]].compareTo(isbn);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return isbnOrder[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the book IDs ordered by the given sorting strategy.
+     * @param sort The sorting strategy
+     * @return The ordered IDs or null if the strategy has no order
+     */
+    private int[] orderOf(String sort) {
+        switch (sort) {
+            case "title":
+                return titleOrder;
+            case "publish-date":
+                return publishDateOrder;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Order all book IDs.
+     * @param comparator Comparator of book IDs
+     * @return The ordered IDs
+     */
+    private int[] order(Comparator<Integer> comparator) {
+        Integer[] ids = new Integer[size];
+        for (int id = 0; id < size; id++) {
+            ids[id] = id;
+        }
+        Arrays.sort(ids, comparator);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = ids[i];
+        }
+        return order;
+    }
+}
@@ -0,0 +1,164 @@
+package Model.Book;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Title and authors of a search that may be misspelled. Each term matches a
+ * text that contains it with at most a few edits (insertions, deletions or
+ * substitutions of a character). The number of edits allowed grows with the
+ * length of the term but stays small enough that a match must still share
+ * some n-grams with the term, so the n-gram indexes can find the candidates.
+ *
+ * @author Michael Kha
+ */
+class FuzzyQuery {
+
+    /**
+     * Most edits allowed in a single term
+     */
+    private static final int MAX_EDITS = 2;
+    /**
+     * Characters of a term for each edit allowed
+     */
+    private static final int CHARS_PER_EDIT = 5;
+
+    /**
+     * Title term or null if the title is ignored
+     */
+    private String title;
+    /**
+     * Author terms
+     */
+    private List<String> authors;
+    /**
+     * Edits allowed in the title and in each author term
+     */
+    private int titleBudget;
+    private int[] authorBudgets;
+
+    /**
+     * Create a fuzzy query from the search parameters.
+     * @param title Title search parameter
+     * @param authors Authors search parameter
+     */
+    FuzzyQuery(String title, List<String> authors) {
+        this.title = title.equals("*") ? null : title;
+        this.authors = new ArrayList<>(authors);
+        titleBudget = this.title == null ? 0 : budget(this.title);
+        authorBudgets = new int[authors.size()];
+        for (int i = 0; i < authorBudgets.length; i++) {
+            authorBudgets[i] = budget(authors.get(i));
+        }
+    }
+
+    /**
+     * Get the title term.
+     * @return The title term or null if the title is ignored
+     */
+    String getTitle() {
+        return title;
+    }
+
+    /**
+     * Get the author terms.
+     * @return The author terms
+     */
+    List<String> getAuthors() {
+        return authors;
+    }
+
+    /**
+     * Get the number of edits allowed in a term. A term of n distinct
+     * n-grams loses at most N of them to each edit, so at least one is kept
+     * in a match.
+     * @param term The term
+     * @return The number of edits allowed
+     */
+    static int budget(String term) {
+        int grams = NGramIndex.grams(Collections.singletonList(term)).size();
+        int edits = Math.min((grams - 1) / NGramIndex.N,
+                term.length() / CHARS_PER_EDIT);
+        return Math.max(0, Math.min(MAX_EDITS, edits));
+    }
+
+    /**
+     * Get the number of distinct n-grams a text must share with a term to
+     * match it.
+     * @param term The term
+     * @return The number of shared n-grams
+     */
+    static int minShared(String term) {
+        int grams = NGramIndex.grams(Collections.singletonList(term)).size();
+        return grams - NGramIndex.N * budget(term);
+    }
+
+    /**
+     * Measure how far a book is from the query.
+     * @param bookTitle The title of the book
+     * @param bookAuthors The authors of the book
+     * @return The total number of edits needed to match every term or -1 if
+     *         a term does not match
+     */
+    int distance(String bookTitle, List<String> bookAuthors) {
+        int total = 0;
+        if (title != null) {
+            int d = substringDistance(title, bookTitle, titleBudget);
+            if (d > titleBudget) {
+                return -1;
+            }
+            total += d;
+        }
+        for (int a = 0; a < authors.size(); a++) {
+            int edits = authorBudgets[a];
+            int best = edits + 1;
+            for (String bookAuthor : bookAuthors) {
+                best = Math.min(best, substringDistance(authors.get(a),
+                        bookAuthor, edits));
+            }
+            if (best > edits) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /**
+     * Find the fewest edits that turn the term into some substring of the
+     * text.
+     * @param term The term
+     * @param text The text to search
+     * @param budget The most edits of interest
+     * @return The number of edits or budget + 1 if more are needed
+     */
+    static int substringDistance(String term, String text, int budget) {
+        int m = term.length();
+        // Column i holds the edits to turn the first i characters of the
+        // term into a substring ending at the current text position
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int i = 0; i <= m; i++) {
+            previous[i] = i;
+        }
+        int best = previous[m];
+        for (int j = 1; j <= text.length(); j++) {
+            char c = text.charAt(j - 1);
+            current[0] = 0;
+            for (int i = 1; i <= m; i++) {
+                int cost = term.charAt(i - 1) == c ? 0 : 1;
+                current[i] = Math.min(previous[i - 1] + cost,
+                        Math.min(previous[i], current[i - 1]) + 1);
+            }
+            best = Math.min(best, current[m]);
+            if (best == 0) {
+                return 0;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(best, budget + 1);
+    }
+}
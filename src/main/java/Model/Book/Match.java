@@ -0,0 +1,48 @@
+package Model.Book;
+
+/**
+ * Enumeration of the ways a search can match the title and authors of a
+ * book.
+ *
+ * @author Michael Kha
+ */
+public enum Match {
+    EXACT("exact"),
+    FUZZY("fuzzy"),
+    FOLDED("folded");
+
+    /**
+     * The match
+     */
+    private String match;
+
+    /**
+     * Enum constructor to set value to a string
+     * @param match The match name
+     */
+    Match(String match) {
+        this.match = match;
+    }
+
+    /**
+     * Get the match with the given name.
+     * @param match The match name
+     * @return The match or null if there is no such match
+     */
+    public static Match fromMatch(String match) {
+        for (Match value : values()) {
+            if (value.match.equals(match)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the match name
+     * @return The match string
+     */
+    public String getMatch() {
+        return match;
+    }
+}
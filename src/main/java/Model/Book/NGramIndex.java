@@ -0,0 +1,248 @@
+package Model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Inverted index from character n-grams to the IDs of the books whose text
+ * contains them. A substring query can only match a book that contains
+ * every n-gram of the query, so intersecting the postings of those n-grams
+ * gives a small candidate set to run the exact contains check on.
+ *
+ * @author Michael Kha
+ */
+class NGramIndex {
+
+    /**
+     * Length of the indexed grams (trigrams)
+     */
+    static final int N = 3;
+    /**
+     * N-grams in more than one in this many books are too common to narrow
+     * down a similarity search
+     */
+    private static final int COMMON_FRACTION = 10;
+
+    /**
+     * Each n-gram mapped to the IDs of books containing it
+     */
+    private Map<String, Postings> postings;
+
+    /**
+     * Create an empty n-gram index.
+     */
+    NGramIndex() {
+        postings = new HashMap<>();
+    }
+
+    /**
+     * Index the texts of a book under its ID.
+     * @param id The ID of the book
+     * @param texts The texts to index, such as the title or each author
+     */
+    void add(int id, Collection<String> texts) {
+        for (String gram : grams(texts)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(id);
+        }
+    }
+
+    /**
+     * Remove the texts of a book from the index. The texts must be the same
+     * ones the book was added with.
+     * @param id The ID of the book
+     * @param texts The texts that were indexed
+     */
+    void remove(int id, Collection<String> texts) {
+        for (String gram : grams(texts)) {
+            Postings posting = postings.get(gram);
+            if (posting == null) {
+                continue;
+            }
+            posting.remove(id);
+            if (posting.size() == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Remove every entry from the index.
+     */
+    void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Estimate how many books could contain the query as a substring
+     * without intersecting any postings.
+     * @param query The substring to search for
+     * @return The size of the smallest posting of the query's n-grams or -1
+     *         if the query is too short to be narrowed down by the index
+     */
+    int estimate(String query) {
+        if (query.length() < N) {
+            return -1;
+        }
+        int smallest = Integer.MAX_VALUE;
+        for (String gram : grams(Collections.singletonList(query))) {
+            Postings posting = postings.get(gram);
+            if (posting == null) {
+                return 0;
+            }
+            smallest = Math.min(smallest, posting.size());
+        }
+        return smallest;
+    }
+
+    /**
+     * Find the IDs of books that could contain the query as a substring.
+     * The result is a superset of the true matches.
+     * @param query The substring to search for
+     * @return The candidate IDs in increasing order or null if the query is
+     *         too short to be narrowed down by the index
+     */
+    int[] candidates(String query) {
+        List<Postings> lists = postings(query);
+        if (lists == null) {
+            return null;
+        }
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+        // Intersect starting from the most selective gram
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = BookStorage.retain(result, lists.get(i)::contains);
+        }
+        return result;
+    }
+
+    /**
+     * Get a test for whether a book could contain the query as a substring,
+     * for checking candidates found through another index.
+     * @param query The substring to search for
+     * @return The test or null if the query is too short to be narrowed
+     *         down by the index
+     */
+    IntPredicate filter(String query) {
+        List<Postings> lists = postings(query);
+        if (lists == null) {
+            return null;
+        }
+        if (lists.isEmpty()) {
+            return id -> false;
+        }
+        return id -> {
+            for (Postings posting : lists) {
+                if (!posting.contains(id)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Get the postings of the n-grams of a query.
+     * @param query The substring to search for
+     * @return The postings, an empty list if an n-gram is in no book or
+     *         null if the query is too short to be narrowed down by the index
+     */
+    private List<Postings> postings(String query) {
+        if (query.length() < N) {
+            return null;
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (String gram : grams(Collections.singletonList(query))) {
+            Postings posting = postings.get(gram);
+            if (posting == null) {
+                return new ArrayList<>();
+            }
+            lists.add(posting);
+        }
+        return lists;
+    }
+
+    /**
+     * Find the IDs of books whose texts share at least the given number of
+     * distinct n-grams with the query. A book that shares enough n-grams
+     * shares enough of any subset of them too, less one for each n-gram
+     * left out. So the n-grams in more than a fraction of the books, such as
+     * "the" or " of", are left out as long as at least one n-gram must still
+     * be shared, and only the postings of the rest are merged. The IDs of
+     * those postings are sorted together and each run of an ID counts the
+     * n-grams it shares, so the cost is that of sorting the postings read.
+     * @param query The text to compare with
+     * @param minShared The number of n-grams a book must share
+     * @param books The number of books in the index
+     * @return The candidate IDs in increasing order or null if the query
+     *         cannot be narrowed down by the index
+     */
+    int[] similar(String query, int minShared, int books) {
+        if (minShared < 1) {
+            return null;
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (String gram : grams(Collections.singletonList(query))) {
+            Postings posting = postings.get(gram);
+            if (posting != null) {
+                lists.add(posting);
+            }
+        }
+        // Leave out the most common n-grams while they are common enough
+        lists.sort((a, b) -> Integer.compare(b.size(), a.size()));
+        int skipped = 0;
+        while (skipped < lists.size() && skipped < minShared - 1
+                && (long) lists.get(skipped).size() * COMMON_FRACTION > books) {
+            skipped++;
+        }
+        int needed = minShared - skipped;
+        int total = 0;
+        for (int i = skipped; i < lists.size(); i++) {
+            total += lists.get(i).size();
+        }
+        int[] ids = new int[total];
+        int offset = 0;
+        for (int i = skipped; i < lists.size(); i++) {
+            int[] posting = lists.get(i).toArray();
+            System.arraycopy(posting, 0, ids, offset, posting.length);
+            offset += posting.length;
+        }
+        Arrays.sort(ids);
+        int size = 0;
+        for (int start = 0, end; start < ids.length; start = end) {
+            end = start + 1;
+            while (end < ids.length && ids[end] == ids[start]) {
+                end++;
+            }
+            if (end - start >= needed) {
+                ids[size++] = ids[start];
+            }
+        }
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Get the distinct n-grams of the texts.
+     * @param texts The texts to split
+     * @return The set of n-grams
+     */
+    static Set<String> grams(Collection<String> texts) {
+        Set<String> grams = new HashSet<>();
+        for (String text : texts) {
+            for (int i = 0; i + N <= text.length(); i++) {
+                grams.add(text.substring(i, i + N));
+            }
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,232 @@
+package Model.Book;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Book storage for a fixed catalog that leaves the books in a memory mapped
+ * catalog snapshot instead of on the heap. Searches compare the UTF-8 bytes
+ * of the query with the mapped strings and only decode the books that are
+ * hits, so heap usage does not grow with the size of the catalog. There
+ * are no n-gram postings off the heap, so fuzzy searches are not supported.
+ *
+ * @author Michael Kha
+ */
+class OffHeapBookStorage extends BookStorage {
+
+    /**
+     * The mapped catalog
+     */
+    private CatalogSnapshot catalog;
+
+    /**
+     * Create the storage over a mapped catalog.
+     * @param catalog The catalog snapshot
+     */
+    OffHeapBookStorage(CatalogSnapshot catalog) {
+        super();
+        this.catalog = catalog;
+    }
+
+    /**
+     * Search the books by scanning the mapped catalog.
+     * @param title Title search parameter
+     * @param authors Authors search parameter
+     * @param isbn ISBN search parameter
+     * @param publisher Publisher search parameter
+     * @param sort Sort the search by either title or publish-date
+     * @param match How the title and authors are matched
+     * @param published Range of years the books were published in
+     * @param pages Range of page counts
+     * @return The hits, which are empty if the match is not supported, or
+     *         null if the sort is invalid
+     */
+    @Override
+    public SearchHits findBooks(String title, List<String> authors,
+                                String isbn, String publisher, String sort,
+                                Match match, Range published, Range pages) {
+        if (!supports(match)) {
+            return new SearchHits(new ArrayList<>(), null);
+        }
+        BitSet inRanges = findInRanges(published.toPublishDateKeys(), pages);
+        boolean folded = match == Match.FOLDED;
+        if (folded) {
+            title = BookInfo.fold(title);
+            authors = fold(authors);
+        }
+        byte[] titleQuery = encode(title);
+        byte[] publisherQuery = encode(publisher);
+        List<byte[]> authorQueries = new ArrayList<>();
+        for (String author : authors) {
+            authorQueries.add(encode(author));
+        }
+        int size = catalog.size();
+        BitSet matches = new BitSet(size);
+        int from = 0;
+        int to = size;
+        if (!isbn.equals("*")) {
+            // Only the book with the ISBN can match
+            int id = catalog.find(isbn);
+            from = Math.max(id, 0);
+            to = id + 1;
+        }
+        if (inRanges != null) {
+            // Only the books in the ranges can match
+            inRanges.clear(0, from);
+            inRanges.clear(to, Math.max(to, size));
+        }
+        for (int id = inRanges == null ? from : inRanges.nextSetBit(0);
+             id >= 0 && id < to;
+             id = inRanges == null ? id + 1 : inRanges.nextSetBit(id + 1)) {
+            boolean found = folded
+                    ? matchesFolded(id, title, authors, publisherQuery)
+                    : matches(id, titleQuery, authorQueries, publisherQuery);
+            if (found) {
+                matches.set(id);
+            }
+        }
+        List<BookInfo> hits = new ArrayList<>(matches.cardinality());
+        switch (sort) {
+            case "title":
+                for (int i = 0; i < size; i++) {
+                    int id = catalog.titleOrder(i);
+                    if (matches.get(id)) {
+                        hits.add(catalog.get(id));
+                    }
+                }
+                break;
+            case "publish-date":
+                for (int i = 0; i < size; i++) {
+                    int id = catalog.publishDateOrder(i);
+                    if (matches.get(id)) {
+                        hits.add(catalog.get(id));
+                    }
+                }
+                break;
+            default:
+                for (int id = matches.nextSetBit(0); id >= 0;
+                     id = matches.nextSetBit(id + 1)) {
+                    hits.add(catalog.get(id));
+                }
+                return createHits(hits, sort);
+        }
+        return new SearchHits(hits, null);
+    }
+
+    /**
+     * Check if the storage can search with the given match. Fuzzy searches
+     * would have to measure every book in the catalog.
+     * @param match How the title and authors are matched
+     * @return If the match is not fuzzy
+     */
+    @Override
+    boolean supports(Match match) {
+        return match != Match.FUZZY;
+    }
+
+    /**
+     * Find the books whose publish date key and page count are in the
+     * ranges of a search. Publish dates are binary searched in the publish
+     * date order of the catalog. Page counts have no order in the catalog,
+     * so the page count column is checked for each book.
+     * @param publishKeys Range of publish date keys
+     * @param pages Range of page counts
+     * @return The book IDs or null if neither range restricts the search
+     */
+    private BitSet findInRanges(Range publishKeys, Range pages) {
+        if (publishKeys.isAll() && pages.isAll()) {
+            return null;
+        }
+        BitSet result;
+        if (publishKeys.isAll()) {
+            result = new BitSet(catalog.size());
+            result.set(0, catalog.size());
+        } else {
+            result = catalog.publishedIn(publishKeys.getLow(),
+                    publishKeys.getHigh());
+        }
+        if (!pages.isAll()) {
+            for (int id = result.nextSetBit(0); id >= 0;
+                 id = result.nextSetBit(id + 1)) {
+                if (!pages.contains(catalog.pageCount(id))) {
+                    result.clear(id);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines a matching between a book and the search parameters with
+     * the same rules as the other storages. The ISBN is checked separately.
+     * @param id The book ID
+     * @param title Title from search or null to ignore
+     * @param authors Authors from search
+     * @param publisher Publisher from search or null to ignore
+     * @return If the book has completely matched through each filter
+     */
+    private boolean matches(int id, byte[] title, List<byte[]> authors,
+                            byte[] publisher) {
+        if (title != null && !catalog.titleContains(id, title)) {
+            return false;
+        }
+        if (publisher != null && !catalog.publisherEquals(id, publisher)) {
+            return false;
+        }
+        for (byte[] author : authors) {
+            if (!catalog.authorContains(id, author)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines a matching between a book and folded search parameters.
+     * The mapped catalog has no folded keys, so the title and authors of
+     * the book are decoded and folded to be compared.
+     * @param id The book ID
+     * @param title Folded title from search
+     * @param authors Folded authors from search
+     * @param publisher Publisher from search or null to ignore
+     * @return If the book has completely matched through each filter
+     */
+    private boolean matchesFolded(int id, String title, List<String> authors,
+                                  byte[] publisher) {
+        if (publisher != null && !catalog.publisherEquals(id, publisher)) {
+            return false;
+        }
+        if (!title.equals("*")
+                && !BookInfo.fold(catalog.title(id)).contains(title)) {
+            return false;
+        }
+        if (authors.isEmpty()) {
+            return true;
+        }
+        List<String> bookAuthors = fold(catalog.authors(id));
+        for (String author : authors) {
+            boolean found = false;
+            for (String bookAuthor : bookAuthors) {
+                found = found || bookAuthor.contains(author);
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encode a search parameter to compare with the mapped strings.
+     * @param parameter The search parameter
+     * @return The UTF-8 bytes or null if the parameter is ignored
+     */
+    private byte[] encode(String parameter) {
+        if (parameter.equals("*")) {
+            return null;
+        }
+        return parameter.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,162 @@
+package Model.Book;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The IDs of the books under one key of an index, such as an n-gram or a
+ * publisher. A bitset takes memory for every ID up to the highest one it
+ * holds, so most postings would cost as much as the whole catalog. The IDs
+ * are kept as a sorted int array instead, and only as a bitset once they
+ * are dense enough for it to be smaller.
+ *
+ * @author Michael Kha
+ */
+class Postings {
+
+    /**
+     * A bitset is used once more than one in this many of the IDs up to the
+     * highest one are held, which is when it is smaller than an int array.
+     * It goes back to an int array once fewer than half as many are held.
+     */
+    private static final int DENSE_RATIO = Integer.SIZE;
+    /**
+     * Postings smaller than this always use an int array
+     */
+    private static final int MIN_DENSE_SIZE = 64;
+
+    /**
+     * The IDs in order when sparse, with room for more after the first size
+     */
+    private int[] sparse;
+    /**
+     * The IDs when dense or null when sparse
+     */
+    private BitSet dense;
+    /**
+     * Number of IDs
+     */
+    private int size;
+
+    /**
+     * Create empty postings.
+     */
+    Postings() {
+        sparse = new int[1];
+    }
+
+    /**
+     * Get the number of IDs.
+     * @return The number of IDs
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Check if an ID is held.
+     * @param id The ID
+     * @return If the ID is held
+     */
+    boolean contains(int id) {
+        if (dense != null) {
+            return dense.get(id);
+        }
+        return Arrays.binarySearch(sparse, 0, size, id) >= 0;
+    }
+
+    /**
+     * Add an ID.
+     * @param id The ID
+     */
+    void add(int id) {
+        if (dense != null) {
+            if (!dense.get(id)) {
+                dense.set(id);
+                size++;
+                if ((long) size * DENSE_RATIO * 2 < dense.length()) {
+                    toSparse();
+                }
+            }
+            return;
+        }
+        // IDs are mostly given out in increasing order, so try appending
+        int position = size;
+        if (size > 0 && sparse[size - 1] >= id) {
+            position = Arrays.binarySearch(sparse, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+        }
+        if (size == sparse.length) {
+            sparse = Arrays.copyOf(sparse, size + (size >> 1) + 1);
+        }
+        System.arraycopy(sparse, position, sparse, position + 1,
+                size - position);
+        sparse[position] = id;
+        size++;
+        if (size >= MIN_DENSE_SIZE
+                && (long) size * DENSE_RATIO >= sparse[size - 1] + 1L) {
+            toDense();
+        }
+    }
+
+    /**
+     * Remove an ID.
+     * @param id The ID
+     */
+    void remove(int id) {
+        if (dense != null) {
+            if (dense.get(id)) {
+                dense.clear(id);
+                size--;
+                if (size < MIN_DENSE_SIZE
+                        || (long) size * DENSE_RATIO * 2 < dense.length()) {
+                    toSparse();
+                }
+            }
+            return;
+        }
+        int position = Arrays.binarySearch(sparse, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(sparse, position + 1, sparse, position,
+                size - position - 1);
+        size--;
+        if (size < sparse.length / 4) {
+            sparse = Arrays.copyOf(sparse, Math.max(size * 2, 1));
+        }
+    }
+
+    /**
+     * Get the IDs in increasing order.
+     * @return A new array of the IDs
+     */
+    int[] toArray() {
+        if (dense != null) {
+            return dense.stream().toArray();
+        }
+        return Arrays.copyOf(sparse, size);
+    }
+
+    /**
+     * Switch to a bitset of the IDs.
+     */
+    private void toDense() {
+        dense = new BitSet(sparse[size - 1] + 1);
+        for (int i = 0; i < size; i++) {
+            dense.set(sparse[i]);
+        }
+        sparse = null;
+    }
+
+    /**
+     * Switch to an int array of the IDs.
+     */
+    private void toSparse() {
+        sparse = size == 0 ? new int[1] : dense.stream().toArray();
+        dense = null;
+    }
+}
@@ -0,0 +1,139 @@
+package Model.Book;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The distinct titles and authors of the books ordered by their folded
+ * form. The completions of a prefix are a contiguous range of the order
+ * that starts at the prefix, so the first completions are found in
+ * logarithmic time without scanning the books. Each title and author is
+ * counted by the books that have it, so books are added and removed without
+ * rebuilding the index.
+ *
+ * @author Michael Kha
+ */
+class PrefixIndex {
+
+    /**
+     * Kinds of completions
+     */
+    static final String TITLE = "title";
+    static final String AUTHOR = "author";
+
+    /**
+     * Each completion mapped to the number of books that have it
+     */
+    private TreeMap<Completion, Integer> counts;
+
+    /**
+     * Create the index of the titles and authors of the books.
+     * @param books The books
+     */
+    PrefixIndex(Collection<BookInfo> books) {
+        counts = new TreeMap<>();
+        for (BookInfo book : books) {
+            add(book);
+        }
+    }
+
+    /**
+     * Add the title and authors of a book.
+     * @param book The book
+     */
+    void add(BookInfo book) {
+        counts.merge(new Completion(TITLE, book.getTitle()), 1, Integer::sum);
+        for (String author : book.getAuthors()) {
+            counts.merge(new Completion(AUTHOR, author), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Remove the title and authors of a book. The book must have been
+     * added before.
+     * @param book The book
+     */
+    void remove(BookInfo book) {
+        decrement(new Completion(TITLE, book.getTitle()));
+        for (String author : book.getAuthors()) {
+            decrement(new Completion(AUTHOR, author));
+        }
+    }
+
+    /**
+     * Count one less book for a completion, dropping it once no book has it.
+     * @param completion The completion
+     */
+    private void decrement(Completion completion) {
+        counts.computeIfPresent(completion, (c, count) ->
+                count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Find the first titles and authors that start with a prefix, ignoring
+     * case and accents.
+     * @param prefix The prefix
+     * @param limit Maximum number of completions
+     * @return The completions in order, each as its kind and text
+     */
+    List<String[]> complete(String prefix, int limit) {
+        Completion start = new Completion(key(prefix), "", "");
+        List<String[]> completions = new ArrayList<>();
+        for (Map.Entry<Completion, Integer> entry
+                : counts.tailMap(start).entrySet()) {
+            Completion completion = entry.getKey();
+            if (completions.size() >= limit
+                    || !completion.key.startsWith(start.key)) {
+                break;
+            }
+            completions.add(new String[] {completion.kind, completion.text});
+        }
+        return completions;
+    }
+
+    /**
+     * Get the key of a text, which is folded and without the quotes that
+     * titles in the books file are wrapped in.
+     * @param text The text
+     * @return The key
+     */
+    private static String key(String text) {
+        int start = 0;
+        while (start < text.length() && text.charAt(start) == '"') {
+            start++;
+        }
+        return BookInfo.fold(text.substring(start));
+    }
+
+    /**
+     * A title or author ordered by its key, then its text and then its
+     * kind, so a text that is both a title and an author is listed as both.
+     */
+    private static class Completion implements Comparable<Completion> {
+        private final String key;
+        private final String text;
+        private final String kind;
+
+        Completion(String kind, String text) {
+            this(key(text), text, kind);
+        }
+
+        Completion(String key, String text, String kind) {
+            this.key = key;
+            this.text = text;
+            this.kind = kind;
+        }
+
+        @Override
+        public int compareTo(Completion other) {
+            int cmp = key.compareTo(other.key);
+            if (cmp == 0) {
+                cmp = text.compareTo(other.text);
+            }
+            return cmp != 0 ? cmp : kind.compareTo(other.kind);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package Model.Book;
+
+/**
+ * An inclusive range of int values that a search can require a number of a
+ * book to be in, such as the year it was published or its page count.
+ * Either end may be left open.
+ *
+ * @author Michael Kha
+ */
+public class Range {
+
+    /**
+     * The range that contains every value
+     */
+    public static final Range ALL = new Range(Integer.MIN_VALUE,
+            Integer.MAX_VALUE);
+
+    /**
+     * Lowest and highest values in the range
+     */
+    private final int low;
+    private final int high;
+
+    /**
+     * Create a range.
+     * @param low Lowest value in the range
+     * @param high Highest value in the range
+     */
+    Range(int low, int high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    /**
+     * Parse a range of the form "low-high", "low-", "-high" or "value".
+     * @param range The range to parse
+     * @return The range or null if it is not a valid range
+     */
+    public static Range parse(String range) {
+        int dash = range.indexOf('-');
+        try {
+            if (dash < 0) {
+                int value = Integer.parseInt(range);
+                return value < 0 ? null : new Range(value, value);
+            }
+            String lowPart = range.substring(0, dash);
+            String highPart = range.substring(dash + 1);
+            if (lowPart.isEmpty() && highPart.isEmpty()) {
+                return null;
+            }
+            int low = lowPart.isEmpty() ? 0 : Integer.parseInt(lowPart);
+            int high = highPart.isEmpty() ? Integer.MAX_VALUE
+                    : Integer.parseInt(highPart);
+            if (low < 0 || high < low) {
+                return null;
+            }
+            return new Range(low, high);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the lowest value in the range.
+     * @return The lowest value
+     */
+    int getLow() {
+        return low;
+    }
+
+    /**
+     * Get the highest value in the range.
+     * @return The highest value
+     */
+    int getHigh() {
+        return high;
+    }
+
+    /**
+     * Check if the range contains every value.
+     * @return If the range does not restrict anything
+     */
+    boolean isAll() {
+        return low == Integer.MIN_VALUE && high == Integer.MAX_VALUE;
+    }
+
+    /**
+     * Check if a value is in the range.
+     * @param value The value
+     * @return If the value is in the range
+     */
+    boolean contains(int value) {
+        return value >= low && value <= high;
+    }
+
+    /**
+     * Convert a range of years to the range of publish date keys of the
+     * dates in those years.
+     * @return The range of publish date keys
+     */
+    Range toPublishDateKeys() {
+        if (isAll()) {
+            return this;
+        }
+        int lastYear = Integer.MAX_VALUE >> 11;
+        int lowKey = low > lastYear ? Integer.MAX_VALUE
+                : BookInfo.parsePublishDate(String.valueOf(low));
+        int highKey = high >= lastYear ? Integer.MAX_VALUE
+                : BookInfo.parsePublishDate(String.valueOf(high + 1)) - 1;
+        return new Range(lowKey, highKey);
+    }
+
+    /**
+     * A string that represents the range
+     * @return The string form of the range
+     */
+    @Override
+    public String toString() {
+        return isAll() ? "*" : low + "-" + high;
+    }
+}
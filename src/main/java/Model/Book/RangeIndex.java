@@ -0,0 +1,167 @@
+package Model.Book;
+
+import java.util.Arrays;
+
+/**
+ * Book IDs ordered by an int value of their books, such as the publish date
+ * key or the page count, kept in sorted primitive arrays. The books in a
+ * range of values are found with two binary searches, so a range costs
+ * O(log n) to count and O(log n + k log k) to list in order of ID. Books
+ * are added and removed in place by binary searching their position and
+ * shifting the arrays, which copies O(n) ints but sorts nothing.
+ *
+ * @author Michael Kha
+ */
+class RangeIndex {
+
+    /**
+     * The values in order with the ID of each book at the same position
+     */
+    private int[] values;
+    private int[] ids;
+    /**
+     * Number of books, with room for more in the arrays after it
+     */
+    private int size;
+
+    /**
+     * Create the index of the values of books.
+     * @param bookValues The value of each book
+     * @param bookIds The ID of each book
+     * @param size Number of books
+     */
+    RangeIndex(int[] bookValues, int[] bookIds, int size) {
+        // Sort value and ID pairs packed into longs to avoid boxing them
+        long[] pairs = new long[size];
+        for (int i = 0; i < size; i++) {
+            pairs[i] = ((long) bookValues[i] << 32) | (bookIds[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(pairs);
+        values = new int[Math.max(size, 1)];
+        ids = new int[Math.max(size, 1)];
+        for (int i = 0; i < size; i++) {
+            values[i] = (int) (pairs[i] >> 32);
+            ids[i] = (int) pairs[i];
+        }
+        this.size = size;
+    }
+
+    /**
+     * Add a book.
+     * @param value The value of the book
+     * @param id The ID of the book
+     */
+    void add(int value, int id) {
+        int position = position(value, id);
+        if (size == values.length) {
+            int capacity = size + (size >> 1) + 1;
+            values = Arrays.copyOf(values, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        System.arraycopy(values, position, values, position + 1,
+                size - position);
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        values[position] = value;
+        ids[position] = id;
+        size++;
+    }
+
+    /**
+     * Remove a book. The value must be the one the book was added with.
+     * @param value The value of the book
+     * @param id The ID of the book
+     */
+    void remove(int value, int id) {
+        int position = position(value, id);
+        if (position == size || values[position] != value
+                || ids[position] != id) {
+            return;
+        }
+        System.arraycopy(values, position + 1, values, position,
+                size - position - 1);
+        System.arraycopy(ids, position + 1, ids, position,
+                size - position - 1);
+        size--;
+    }
+
+    /**
+     * Count the books with a value in the range.
+     * @param range The range
+     * @return The number of books
+     */
+    int count(Range range) {
+        return upperBound(range.getHigh()) - lowerBound(range.getLow());
+    }
+
+    /**
+     * Find the books with a value in the range.
+     * @param range The range
+     * @return The IDs of the books in increasing order
+     */
+    int[] find(Range range) {
+        int from = lowerBound(range.getLow());
+        int[] result = Arrays.copyOfRange(ids, from,
+                upperBound(range.getHigh()));
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Find the first position whose value and ID are not less than the
+     * given ones.
+     * @param value The value
+     * @param id The ID
+     * @return The position
+     */
+    private int position(int value, int id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value || values[mid] == value && ids[mid] < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the first position whose value is not less than the given value.
+     * @param value The value
+     * @return The position
+     */
+    private int lowerBound(int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the first position whose value is greater than the given value.
+     * @param value The value
+     * @return The position
+     */
+    private int upperBound(int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,140 @@
+package Model.Book;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Bounded cache of search results. Entries expire after a time to live and
+ * the least recently used entry is evicted when the cache is full. Hits,
+ * misses and evictions are counted.
+ *
+ * @param <K> The key of a search
+ * @param <V> The result of a search
+ * @author Michael Kha
+ */
+class SearchCache<K, V> {
+
+    /**
+     * Maximum number of entries
+     */
+    private int capacity;
+    /**
+     * Time to live of an entry in nanoseconds or 0 if entries do not expire
+     */
+    private long ttl;
+    /**
+     * Entries in least recently used order
+     */
+    private LinkedHashMap<K, Entry<V>> entries;
+    /**
+     * Statistics of the cache
+     */
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create an empty cache.
+     * @param capacity Maximum number of entries
+     * @param ttlMillis Time to live of an entry in milliseconds or 0 if
+     *                  entries do not expire
+     */
+    SearchCache(int capacity, long ttlMillis) {
+        this.capacity = capacity;
+        this.ttl = ttlMillis * 1_000_000L;
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Get the cached result of a search.
+     * @param key The search
+     * @return The result or null if it is not cached or has expired
+     */
+    synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && isExpired(entry, System.nanoTime())) {
+            entries.remove(key);
+            evictions++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Cache the result of a search, evicting the least recently used
+     * entries if the cache is full.
+     * @param key The search
+     * @param value The result
+     */
+    synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Get the number of searches answered from the cache.
+     * @return The number of hits
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of searches that were not cached.
+     * @return The number of misses
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of entries removed because they expired or the cache
+     * was full.
+     * @return The number of evictions
+     */
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get the fraction of searches answered from the cache.
+     * @return The hit rate or 0 if there were no searches
+     */
+    synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Check if an entry has outlived the time to live.
+     * @param entry The entry
+     * @param now The current time in nanoseconds
+     * @return If the entry has expired
+     */
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttl > 0 && now - entry.created > ttl;
+    }
+
+    /**
+     * A cached result and the time it was cached.
+     */
+    private static class Entry<V> {
+        private final V value;
+        private final long created;
+
+        Entry(V value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package Model.Book;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * All books matched by a search, kept so that pages of the results can be
+ * taken without searching again. The hits are only put in order as far as
+ * the pages taken need. The next hits of a page are selected with a bounded
+ * heap instead of sorting every hit.
+ *
+ * @author Michael Kha
+ */
+public class SearchHits {
+
+    /**
+     * Selecting with a heap is only faster than sorting the unsorted hits
+     * when a page needs less than this fraction of them
+     */
+    private static final int SELECT_FRACTION = 4;
+
+    /**
+     * The hits where the first sorted hits are in order
+     */
+    private BookInfo[] hits;
+    private int sorted;
+    /**
+     * Order of the hits or null if they are already in order
+     */
+    private Comparator<BookInfo> order;
+
+    /**
+     * Create the hits of a search.
+     * @param hits The hits
+     * @param order Order of the hits or null if they are already in order
+     */
+    SearchHits(List<BookInfo> hits, Comparator<BookInfo> order) {
+        this.hits = hits.toArray(new BookInfo[0]);
+        this.order = order;
+        sorted = order == null ? this.hits.length : 0;
+    }
+
+    /**
+     * Get the number of hits.
+     * @return The number of hits
+     */
+    public int size() {
+        return hits.length;
+    }
+
+    /**
+     * Get a page of the hits in order.
+     * @param offset Position of the first hit of the page
+     * @param limit Maximum number of hits in the page
+     * @return The hits of the page which is empty past the last hit
+     */
+    public synchronized List<BookInfo> page(int offset, int limit) {
+        int from = Math.min(offset, hits.length);
+        int to = (int) Math.min((long) offset + limit, hits.length);
+        sortTo(to);
+        return Arrays.asList(Arrays.copyOfRange(hits, from, to));
+    }
+
+    /**
+     * Put the first hits in order. The hits after them are the rest of the
+     * unsorted hits.
+     * @param count The number of hits that must be in order
+     */
+    private void sortTo(int count) {
+        if (count <= sorted) {
+            return;
+        }
+        // At least double the sorted hits so that paging through all of
+        // them costs about as much as one sort
+        count = Math.max(count, (int) Math.min(2L * sorted, hits.length));
+        int unsorted = hits.length - sorted;
+        int needed = count - sorted;
+        if (needed > unsorted / SELECT_FRACTION) {
+            Arrays.sort(hits, sorted, hits.length, order);
+            sorted = hits.length;
+            return;
+        }
+        // Keep the positions of the smallest hits seen in a max heap
+        PriorityQueue<Integer> heap = new PriorityQueue<>(needed,
+                (i, j) -> order.compare(hits[j], hits[i]));
+        for (int i = sorted; i < hits.length; i++) {
+            if (heap.size() < needed) {
+                heap.add(i);
+            } else if (order.compare(hits[i], hits[heap.peek()]) < 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        BookInfo[] selected = new BookInfo[needed];
+        BitSet taken = new BitSet(hits.length);
+        for (int s = needed - 1; s >= 0; s--) {
+            int i = heap.poll();
+            selected[s] = hits[i];
+            taken.set(i);
+        }
+        BookInfo[] rest = new BookInfo[unsorted - needed];
+        int r = 0;
+        for (int i = sorted; i < hits.length; i++) {
+            if (!taken.get(i)) {
+                rest[r++] = hits[i];
+            }
+        }
+        System.arraycopy(selected, 0, hits, sorted, needed);
+        System.arraycopy(rest, 0, hits, count, rest.length);
+        sorted = count;
+    }
+}
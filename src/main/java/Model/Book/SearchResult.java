@@ -0,0 +1,108 @@
+package Model.Book;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable result of a search that gives each book an ID. The IDs are the
+ * positions of the books in the search, starting at the offset of the
+ * first book when the result is a page of a larger search. Results are
+ * saved with the checkout database when the server shuts down.
+ *
+ * @author Michael Kha
+ */
+public class SearchResult implements Serializable {
+
+    /**
+     * The books in order of their IDs
+     */
+    private final BookInfo[] books;
+    /**
+     * ID of the first book
+     */
+    private final int offset;
+
+    /**
+     * Create a result of the given books numbered from 0.
+     * @param books The books in order
+     */
+    public SearchResult(List<BookInfo> books) {
+        this(books, 0);
+    }
+
+    /**
+     * Create a result of the given books numbered from the offset.
+     * @param books The books in order
+     * @param offset ID of the first book
+     */
+    public SearchResult(List<BookInfo> books, int offset) {
+        this.books = books.toArray(new BookInfo[0]);
+        this.offset = offset;
+    }
+
+    /**
+     * Get the number of books in the result.
+     * @return The number of books
+     */
+    public int size() {
+        return books.length;
+    }
+
+    /**
+     * Get the ID of the first book.
+     * @return The offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get a book by its ID.
+     * @param id The ID
+     * @return The book or null if no book has the ID
+     */
+    public BookInfo get(int id) {
+        int index = id - offset;
+        if (index < 0 || index >= books.length) {
+            return null;
+        }
+        return books[index];
+    }
+
+    /**
+     * Get a book by the ID given in a request.
+     * @param id The ID
+     * @return The book or null if no book has the ID
+     */
+    public BookInfo get(String id) {
+        try {
+            int index = Integer.parseInt(id);
+            // Only the canonical form of an ID names a book, not "01" or "+1"
+            if (!String.valueOf(index).equals(id)) {
+                return null;
+            }
+            return get(index);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Check if a book has the ID given in a request.
+     * @param id The ID
+     * @return If a book has the ID
+     */
+    public boolean containsId(String id) {
+        return get(id) != null;
+    }
+
+    /**
+     * Get the books in order of their IDs.
+     * @return An unmodifiable list of the books
+     */
+    public List<BookInfo> getBooks() {
+        return Collections.unmodifiableList(Arrays.asList(books));
+    }
+}
@@ -0,0 +1,224 @@
+package Model.Book;
+
+import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pool of canonical authors, author lists and publishers shared by all
+ * book info. Catalogs repeat the same authors and publishers many times,
+ * so every book info keeps the pooled instance instead of its own copy.
+ * The pool only holds weak references, so an entry is dropped once no book
+ * info uses it and books that are searched but never kept, such as Google
+ * Books results, do not stay on the heap. The pools are concurrent maps, so
+ * the threads of the parallel catalog loader do not wait on each other.
+ *
+ * @author Michael Kha
+ */
+class StringPool {
+
+    /**
+     * Singleton instance
+     */
+    private static final StringPool instance = new StringPool();
+
+    /**
+     * The canonical instance of each distinct string
+     */
+    private Pool<String> strings;
+    /**
+     * The canonical instance of each distinct author list
+     */
+    private Pool<AuthorList> authorLists;
+
+    /**
+     * Create an empty pool.
+     */
+    private StringPool() {
+        strings = new Pool<>();
+        authorLists = new Pool<>();
+    }
+
+    /**
+     * Get the single instance of StringPool
+     * @return The one and only StringPool
+     */
+    static StringPool getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get the canonical instance of an author or publisher.
+     * @param string The string
+     * @return An equal string shared by all callers
+     */
+    String canonical(String string) {
+        if (string == null) {
+            return null;
+        }
+        return strings.intern(string);
+    }
+
+    /**
+     * Get the canonical immutable list of the given authors. Each author is
+     * canonicalized as well.
+     * @param authors The authors
+     * @return An equal immutable list shared by all callers
+     */
+    List<String> authors(List<String> authors) {
+        if (authors instanceof AuthorList) {
+            return authors;
+        }
+        String[] array = new String[authors.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = canonical(authors.get(i));
+        }
+        return authorLists.intern(new AuthorList(array));
+    }
+
+    /**
+     * Concurrent pool of values that only holds them weakly. Each value is
+     * its own key through a weak reference, and the references of collected
+     * values are removed as they are queued.
+     * @param <T> Type of the pooled values
+     */
+    private static class Pool<T> {
+
+        /**
+         * Each pooled value's reference mapped to itself
+         */
+        private final ConcurrentMap<Key<T>, Key<T>> keys =
+                new ConcurrentHashMap<>();
+        /**
+         * References whose values were collected
+         */
+        private final ReferenceQueue<T> collected = new ReferenceQueue<>();
+
+        /**
+         * Get the pooled instance equal to a value, pooling the value if
+         * there is none or it was already collected.
+         * @param value The value
+         * @return An equal value shared by all callers
+         */
+        T intern(T value) {
+            expunge();
+            Key<T> key = new Key<>(value, collected);
+            while (true) {
+                Key<T> pooled = keys.putIfAbsent(key, key);
+                if (pooled == null) {
+                    return value;
+                }
+                T existing = pooled.get();
+                if (existing != null) {
+                    return existing;
+                }
+                // Collected but not queued yet
+                keys.remove(pooled, pooled);
+            }
+        }
+
+        /**
+         * Remove the references of collected values.
+         */
+        private void expunge() {
+            Reference<? extends T> reference;
+            while ((reference = collected.poll()) != null) {
+                keys.remove(reference, reference);
+            }
+        }
+    }
+
+    /**
+     * Weak reference to a pooled value that is equal to the references of
+     * equal values. A reference whose value was collected is only equal to
+     * itself.
+     * @param <T> Type of the value
+     */
+    private static class Key<T> extends WeakReference<T> {
+
+        /**
+         * Hash code of the value, kept once the value is collected
+         */
+        private final int hash;
+
+        Key(T value, ReferenceQueue<T> queue) {
+            super(value, queue);
+            hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Object value = get();
+            return value != null && Objects.equals(value, ((Key<?>) other).get());
+        }
+    }
+
+    /**
+     * Immutable list of authors backed by an array.
+     */
+    private static class AuthorList extends AbstractList<String>
+            implements RandomAccess, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The authors
+         */
+        private final String[] authors;
+        /**
+         * Cached hash code since lists are looked up in the pool
+         */
+        private final int hash;
+
+        /**
+         * Create a list over the array of authors.
+         * @param authors The authors
+         */
+        AuthorList(String[] authors) {
+            this.authors = authors;
+            hash = Arrays.hashCode(authors);
+        }
+
+        @Override
+        public String get(int index) {
+            return authors[index];
+        }
+
+        @Override
+        public int size() {
+            return authors.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other instanceof AuthorList) {
+                return Arrays.equals(authors, ((AuthorList) other).authors);
+            }
+            return super.equals(other);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package Model.Checkout;
 import Controller.Request.RequestUtil;
 import Model.Book.BookDB;
 import Model.Book.BookInfo;
+import Model.Book.SearchResult;
 import Model.Library.TimeKeeper;
 
 import java.io.Serializable;
@@ -38,7 +39,7 @@ public class CheckoutDB implements Serializable,RequestUtil {
     /**
      * Tracks the last find borrowed books for a visitor query
      */
-    private Map<String,BookInfo> lastBorrowedBooks;
+    private SearchResult lastBorrowedBooks;
     /**
      * Amount of fines collected during a day.
      * Used for LibraryStatisticsReports. Cleared when daily report is generated during closing time.
@@ -175,7 +176,7 @@ public class CheckoutDB implements Serializable,RequestUtil {
      * @param bookIDs list of books to be returned
      * @return String whether returnBook command was successful
      */
-    public String returnBooks(Map<String, BookInfo> search, String visitorID, List<String> bookIDs, BookDB bookDB, TimeKeeper timeKeeper) {
+    public String returnBooks(SearchResult search, String visitorID, List<String> bookIDs, BookDB bookDB, TimeKeeper timeKeeper) {
         double totalFine = 0;
         List<String> overdue = new ArrayList<>();
         Transaction t;
@@ -244,9 +245,10 @@ public class CheckoutDB implements Serializable,RequestUtil {
      * @return The string containing the books borrowed under the visitor
      */
     public String findBorrowedBooks(String visitorID){
-        lastBorrowedBooks = new HashMap<>();
+        List<BookInfo> borrowed = new ArrayList<>();
         List<Transaction> visitorTransactions = openLoans.get(visitorID);
         if (visitorTransactions == null) {
+            lastBorrowedBooks = new SearchResult(borrowed);
             return BORROWED_REQUEST + DELIMITER + 0 + TERMINATOR;
         }
         String response = BORROWED_REQUEST + DELIMITER + visitorTransactions.size() + DELIMITER;
@@ -258,9 +260,10 @@ public class CheckoutDB implements Serializable,RequestUtil {
             String checkoutDate = transaction.getCheckoutDate();
             String title = transaction.getTitle();
             response += id+DELIMITER+isbn+DELIMITER+title+DELIMITER+checkoutDate;
-            lastBorrowedBooks.put(String.valueOf(id), transaction.getBookInfo());
+            borrowed.add(transaction.getBookInfo());
             id++;
         }
+        lastBorrowedBooks = new SearchResult(borrowed);
         response += TERMINATOR;
         return response;
     }
@@ -269,7 +272,7 @@ public class CheckoutDB implements Serializable,RequestUtil {
      * Get the last borrowed books search;
      * @return The last borrowed books
      */
-    public Map<String, BookInfo> getLastBorrowedBooks() {
+    public SearchResult getLastBorrowedBooks() {
         return lastBorrowedBooks;
     }
 
@@ -1,9 +1,9 @@
 package Model.Client;
 
 import Controller.Request.Request;
-import Model.Book.BookInfo;
+import Model.Book.SearchResult;
+import Model.Book.SearchHits;
 
-import java.util.Map;
 import java.util.Stack;
 
 /**
@@ -51,17 +51,26 @@ public class Account {
     /**
      * The last store search performed by the account
      */
-    private Map<String, BookInfo> storeSearch;
+    private SearchResult storeSearch;
 
     /**
      * The last library search performed by the account
      */
-    private Map<String, BookInfo> librarySearch;
+    private SearchResult librarySearch;
 
     /**
      * The last borrowed search performed by the account
      */
-    private Map<String, BookInfo> borrowedSearch;
+    private SearchResult borrowedSearch;
+
+    /**
+     * All hits of the last store and library searches and the queries that
+     * found them, kept so that later pages can be taken from them
+     */
+    private String storeQuery;
+    private SearchHits storeHits;
+    private String libraryQuery;
+    private SearchHits libraryHits;
 
     /**
      * Create an account given the following credentials.
@@ -111,7 +120,7 @@ public class Account {
      * Set the account's store search.
      * @param books The books to set to
      */
-    public void setStoreSearch(Map<String, BookInfo> books) {
+    public void setStoreSearch(SearchResult books) {
         storeSearch = books;
     }
 
@@ -119,7 +128,7 @@ public class Account {
      * Set the account's library search.
      * @param books The books to set to
      */
-    public void setLibrarySearch(Map<String, BookInfo> books) {
+    public void setLibrarySearch(SearchResult books) {
         librarySearch = books;
     }
 
@@ -127,7 +136,7 @@ public class Account {
      * Set the account's borrowed search.
      * @param books The books to set to
      */
-    public void setBorrowedSearch(Map<String, BookInfo> books) {
+    public void setBorrowedSearch(SearchResult books) {
         borrowedSearch = books;
     }
 
@@ -135,7 +144,7 @@ public class Account {
      * Get the account's store search.
      * @return The store search
      */
-    public Map<String, BookInfo> getStoreSearch() {
+    public SearchResult getStoreSearch() {
         return storeSearch;
     }
 
@@ -143,7 +152,7 @@ public class Account {
      * Get the account's library search.
      * @return The library search
      */
-    public Map<String, BookInfo> getLibrarySearch() {
+    public SearchResult getLibrarySearch() {
         return librarySearch;
     }
 
@@ -151,10 +160,48 @@ public class Account {
      * Get the account's borrowed search.
      * @return The borrowed search
      */
-    public Map<String, BookInfo> getBorrowedSearch() {
+    public SearchResult getBorrowedSearch() {
         return borrowedSearch;
     }
 
+    /**
+     * Set all hits of the account's last store search.
+     * @param query The query that found the hits
+     * @param hits The hits
+     */
+    public void setStoreHits(String query, SearchHits hits) {
+        storeQuery = query;
+        storeHits = hits;
+    }
+
+    /**
+     * Get all hits of the account's last store search if it was the same.
+     * @param query The query of the search
+     * @return The hits or null if the last store search was another query
+     */
+    public SearchHits getStoreHits(String query) {
+        return query.equals(storeQuery) ? storeHits : null;
+    }
+
+    /**
+     * Set all hits of the account's last library search.
+     * @param query The query that found the hits
+     * @param hits The hits
+     */
+    public void setLibraryHits(String query, SearchHits hits) {
+        libraryQuery = query;
+        libraryHits = hits;
+    }
+
+    /**
+     * Get all hits of the account's last library search if it was the same.
+     * @param query The query of the search
+     * @return The hits or null if the last library search was another query
+     */
+    public SearchHits getLibraryHits(String query) {
+        return query.equals(libraryQuery) ? libraryHits : null;
+    }
+
     /**
      * Execute the request using the account's role to determine if execution
      * is allowed.
@@ -2,7 +2,8 @@ package Model.Client;
 
 import Controller.Request.Request;
 import Controller.Request.RequestUtil;
-import Model.Book.BookInfo;
+import Model.Book.SearchResult;
+import Model.Book.SearchHits;
 
 import java.io.Serializable;
 import java.util.HashMap;
@@ -244,7 +245,7 @@ public class AccountDB implements Serializable, RequestUtil {
      * @param books The books to set to
      * @param clientID The client ID to get the account
      */
-    public void setLibrarySearch(Map<String, BookInfo> books, String clientID) {
+    public void setLibrarySearch(SearchResult books, String clientID) {
         Account account = activeAccounts.get(clientID);
         if (account == null) {
             return;
@@ -257,7 +258,7 @@ public class AccountDB implements Serializable, RequestUtil {
      * @param books The books to set to
      * @param clientID The client ID to get the account
      */
-    public void setStoreSearch(Map<String, BookInfo> books, String clientID) {
+    public void setStoreSearch(SearchResult books, String clientID) {
         Account account = activeAccounts.get(clientID);
         if (account == null) {
             return;
@@ -270,7 +271,7 @@ public class AccountDB implements Serializable, RequestUtil {
      * @param books The books to set to
      * @param clientID The client ID to get the account
      */
-    public void setBorrowedSearch(Map<String, BookInfo> books, String clientID) {
+    public void setBorrowedSearch(SearchResult books, String clientID) {
         Account account = activeAccounts.get(clientID);
         if (account == null) {
             return;
@@ -283,7 +284,7 @@ public class AccountDB implements Serializable, RequestUtil {
      * @param clientID The client ID to get the account
      * @return The book search
      */
-    public Map<String, BookInfo> getLibrarySearch(String clientID) {
+    public SearchResult getLibrarySearch(String clientID) {
         Account account = activeAccounts.get(clientID);
         if (account == null) {
             return null;
@@ -296,7 +297,7 @@ public class AccountDB implements Serializable, RequestUtil {
      * @param clientID The client ID to get the account
      * @return The book search
      */
-    public Map<String, BookInfo> getStoreSearch(String clientID) {
+    public SearchResult getStoreSearch(String clientID) {
         Account account = activeAccounts.get(clientID);
         if (account == null) {
             return null;
@@ -309,7 +310,7 @@ public class AccountDB implements Serializable, RequestUtil {
      * @param clientID The client ID to get the account
      * @return The book search
      */
-    public Map<String, BookInfo> getBorrowedSearch(String clientID) {
+    public SearchResult getBorrowedSearch(String clientID) {
         Account account = activeAccounts.get(clientID);
         if (account == null) {
             return null;
@@ -317,4 +318,60 @@ public class AccountDB implements Serializable, RequestUtil {
         return account.getBorrowedSearch();
     }
 
+    /**
+     * Set all hits of the account's store search.
+     * @param query The query that found the hits
+     * @param hits The hits
+     * @param clientID The client ID to get the account
+     */
+    public void setStoreHits(String query, SearchHits hits, String clientID) {
+        Account account = activeAccounts.get(clientID);
+        if (account == null) {
+            return;
+        }
+        account.setStoreHits(query, hits);
+    }
+
+    /**
+     * Get all hits of the account's store search if it was the same query.
+     * @param query The query of the search
+     * @param clientID The client ID to get the account
+     * @return The hits or null if there are none for the query
+     */
+    public SearchHits getStoreHits(String query, String clientID) {
+        Account account = activeAccounts.get(clientID);
+        if (account == null) {
+            return null;
+        }
+        return account.getStoreHits(query);
+    }
+
+    /**
+     * Set all hits of the account's library search.
+     * @param query The query that found the hits
+     * @param hits The hits
+     * @param clientID The client ID to get the account
+     */
+    public void setLibraryHits(String query, SearchHits hits, String clientID) {
+        Account account = activeAccounts.get(clientID);
+        if (account == null) {
+            return;
+        }
+        account.setLibraryHits(query, hits);
+    }
+
+    /**
+     * Get all hits of the account's library search if it was the same query.
+     * @param query The query of the search
+     * @param clientID The client ID to get the account
+     * @return The hits or null if there are none for the query
+     */
+    public SearchHits getLibraryHits(String query, String clientID) {
+        Account account = activeAccounts.get(clientID);
+        if (account == null) {
+            return null;
+        }
+        return account.getLibraryHits(query);
+    }
+
 }
@@ -7,7 +7,8 @@ package Model.Client;
  */
 public enum Service {
     LOCAL("local"),
-    GOOGLE("google");
+    GOOGLE("google"),
+    FEDERATED("federated");
 
     /**
      * The service
@@ -25,10 +26,24 @@ public enum Service {
     /**
      * Determine if the given service is a valid service.
      * @param service The service to check
-     * @return If the service is local, google or not
+     * @return If the service is local, google, federated or not
      */
     public static boolean isService(String service) {
-        return LOCAL.service.equals(service) || GOOGLE.service.equals(service);
+        return fromService(service) != null;
+    }
+
+    /**
+     * Get the service with the given name.
+     * @param service The service name
+     * @return The service or null if there is no such service
+     */
+    public static Service fromService(String service) {
+        for (Service value : values()) {
+            if (value.service.equals(service)) {
+                return value;
+            }
+        }
+        return null;
     }
 
     /**
@@ -2,13 +2,12 @@ package Model.Library;
 
 import Controller.Request.RequestUtil;
 import Model.Book.BookDB;
-import Model.Book.BookInfo;
+import Model.Book.SearchResult;
 import Model.Checkout.CheckoutDB;
 import Model.Visitor.VisitorDB;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 /**
  * The state of the Library when it is closed. Checkouts and visits not allowed.
@@ -25,7 +24,7 @@ public class LibraryClosed implements LibraryState, RequestUtil {
      * @param checkoutDate the current date of checkout
      */
     @Override
-    public String checkoutBooks(Map<String, BookInfo> search, LocalDateTime checkoutDate, String visitorID, List<String> bookIds) {
+    public String checkoutBooks(SearchResult search, LocalDateTime checkoutDate, String visitorID, List<String> bookIds) {
         return BORROW_REQUEST+DELIMITER+CLOSED_LIBRARY+TERMINATOR;
     }
 
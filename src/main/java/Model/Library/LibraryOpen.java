@@ -3,13 +3,13 @@ package Model.Library;
 import Controller.Request.RequestUtil;
 import Model.Book.BookDB;
 import Model.Book.BookInfo;
+import Model.Book.SearchResult;
 import Model.Checkout.CheckoutDB;
 import Model.Checkout.Transaction;
 import Model.Visitor.VisitorDB;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 /**
  * The state of the Library when it is open. Checkouts and visits are allowed.
@@ -32,7 +32,7 @@ class LibraryOpen implements LibraryState,RequestUtil {
      * @param checkoutDate the current date of checkout
      */
     @Override
-    public String checkoutBooks(Map<String, BookInfo> search, LocalDateTime checkoutDate,
+    public String checkoutBooks(SearchResult search, LocalDateTime checkoutDate,
                                 String visitorID, List<String> bookIds) {
         BookDB bookDB = BookDB.getInstance();
         CheckoutDB checkoutDB = CheckoutDB.getInstance();
@@ -1,6 +1,6 @@
 package Model.Library;
 import Controller.Request.RequestUtil;
-import Model.Book.BookInfo;
+import Model.Book.SearchResult;
 import Model.Visitor.VisitorDB;
 
 import java.io.Serializable;
@@ -91,7 +91,7 @@ public class LibrarySystem implements Serializable, RequestUtil{
      * @param bookIds the books to be checked out
      * @return formatted string regarding the success of the command
      */
-    public String checkoutBooks(Map<String, BookInfo> search, String visitorID, List<String> bookIds) {
+    public String checkoutBooks(SearchResult search, String visitorID, List<String> bookIds) {
         return currentLibraryState.checkoutBooks(search, timeKeeper.getClock(),visitorID, bookIds);
     }
 
@@ -100,10 +100,16 @@ public class ReportGenerator implements RequestUtil, Serializable {
         int numBooksPurchased = bookDB.getBooksPurchased();
         double collectedFines = checkoutDB.getCollectedFines();
         double uncollectedFines = checkoutDB.getUncollectedFines();
+        double searchCacheHitRate = bookDB.getSearchCacheHitRate();
+        long catalogLoadRate = bookDB.getCatalogLoadRate();
+        long apiCacheHits = bookDB.getApiCacheHits();
+        long apiCacheMisses = bookDB.getApiCacheMisses();
+        long apiCacheEvictions = bookDB.getApiCacheEvictions();
 
         StatisticsReport statisticsReport = new StatisticsReport(numBooksInLibrary,
                 numRegisteredVisitors, avgLengthVisitLong, avgLengthVisit, numBooksPurchased,
-                collectedFines, uncollectedFines);
+                collectedFines, uncollectedFines, searchCacheHitRate, catalogLoadRate,
+                apiCacheHits, apiCacheMisses, apiCacheEvictions);
         statisticsReportList.add(statisticsReport);
 
         //Clear daily stats in DataBases
@@ -20,6 +20,11 @@ public class StatisticsReport implements Serializable, RequestUtil {
     private int numBooksPurchased;
     private double finesCollected;
     private double finesUncollected;
+    private double searchCacheHitRate;
+    private long catalogLoadRate;
+    private long apiCacheHits;
+    private long apiCacheMisses;
+    private long apiCacheEvictions;
 
     /**
      * Constructor setting the report statistics
@@ -29,10 +34,18 @@ public class StatisticsReport implements Serializable, RequestUtil {
      * @param numBooksPurchased
      * @param finesCollected
      * @param finesUncollected
+     * @param searchCacheHitRate
+     * @param catalogLoadRate
+     * @param apiCacheHits
+     * @param apiCacheMisses
+     * @param apiCacheEvictions
      */
     public StatisticsReport(int numBooksInLibrary, int numRegisteredVisitors,
                             long avgLengthVisitLong, String avgLengthVisit, int numBooksPurchased,
-                            double finesCollected, double finesUncollected) {
+                            double finesCollected, double finesUncollected,
+                            double searchCacheHitRate, long catalogLoadRate,
+                            long apiCacheHits, long apiCacheMisses,
+                            long apiCacheEvictions) {
         this.numBooksInLibrary = numBooksInLibrary;
         this.numRegisteredVisitors = numRegisteredVisitors;
         this.avgLengthVisit = avgLengthVisit;
@@ -40,6 +53,11 @@ public class StatisticsReport implements Serializable, RequestUtil {
         this.numBooksPurchased = numBooksPurchased;
         this.finesCollected = finesCollected;
         this.finesUncollected = finesUncollected;
+        this.searchCacheHitRate = searchCacheHitRate;
+        this.catalogLoadRate = catalogLoadRate;
+        this.apiCacheHits = apiCacheHits;
+        this.apiCacheMisses = apiCacheMisses;
+        this.apiCacheEvictions = apiCacheEvictions;
     }
 
     /**
@@ -53,6 +71,14 @@ public class StatisticsReport implements Serializable, RequestUtil {
         numRegisteredVisitors = statisticsReportList.get(0).numRegisteredVisitors;
         //Fines Uncollected from most recent report
         finesUncollected = statisticsReportList.get(0).finesUncollected;
+        //Search cache hit rate since the start from most recent report
+        searchCacheHitRate = statisticsReportList.get(0).searchCacheHitRate;
+        //Catalog load rate of the bookstore from most recent report
+        catalogLoadRate = statisticsReportList.get(0).catalogLoadRate;
+        //Google cache statistics since the start from most recent report
+        apiCacheHits = statisticsReportList.get(0).apiCacheHits;
+        apiCacheMisses = statisticsReportList.get(0).apiCacheMisses;
+        apiCacheEvictions = statisticsReportList.get(0).apiCacheEvictions;
 
         long avgLengthVisits = 0;
         for (StatisticsReport statisticsReport : statisticsReportList) {
@@ -75,6 +101,15 @@ public class StatisticsReport implements Serializable, RequestUtil {
                 "Average Length of Visit: " + avgLengthVisit + NEW_LINE +
                 "Number of Books Purchased: " + numBooksPurchased + NEW_LINE +
                 "Fines Collected: " + finesCollected + NEW_LINE +
-                "Fines Outstanding: " + finesUncollected + NEW_LINE + TERMINATOR;
+                "Fines Outstanding: " + finesUncollected + NEW_LINE +
+                String.format("Search Cache Hit Rate: %.1f%%", searchCacheHitRate * 100) +
+                NEW_LINE +
+                "Google Cache Hits: " + apiCacheHits + NEW_LINE +
+                "Google Cache Misses: " + apiCacheMisses + NEW_LINE +
+                "Google Cache Evictions: " + apiCacheEvictions + NEW_LINE +
+                // Only known once the bookstore read the books file
+                (catalogLoadRate > 0 ? "Catalog Load Rate: " + catalogLoadRate
+                        + " lines/s" + NEW_LINE : "") +
+                TERMINATOR;
     }
 }
@@ -79,6 +79,9 @@ public class LBServer {
     public LBServer() {
         accountDB = AccountDB.getInstance();
         bookDB = BookDB.getInstance();
+        // Start loading the catalog while the first requests come in if
+        // pre-warming is turned on
+        bookDB.prewarmStores();
         visitorDB = VisitorDB.getInstance();
         checkoutDB = CheckoutDB.getInstance();
         timeKeeper = TimeKeeper.getInstance();
@@ -135,6 +138,7 @@ public class LBServer {
      * Ends the server.
      */
     public void exit() {
+        bookDB.shutdownStores();
         System.exit(0);
     }
 